@@ -0,0 +1,258 @@
+package heavyindustry.core;
+
+import com.mojang.logging.LogUtils;
+import heavyindustry.util.Demodulator;
+import heavyindustry.util.Reflects;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The startup of the mod split into named phases, each timed in nanoseconds. A phase may depend on phases added before it,
+ * phases whose dependencies are done run in parallel, and a phase whose dependency failed is skipped. Deferred phases do not
+ * run with the others but on their first {@link #ensure(String)}, so work that is not needed at startup costs nothing there.
+ * <p>{@link #report()} gives the breakdown of the startup time. If the system property {@code heavyindustry.startupReport}
+ * names a file, {@link #writeReport()} also writes the timings there as CSV, for tracking the load time in CI.
+ * <p>Phases started from a static initializer run on other threads while the class is still being initialized, so their
+ * code must not be in that class: a lambda of the class would wait for its initialization forever. This is why the early
+ * phases of the mod are declared here in {@link #early()}.
+ *
+ * @since 1.0.8
+ */
+public final class Bootstrap {
+	private static final Logger LOGGER = LogUtils.getLogger();
+
+	public final String name;
+	/** When this bootstrap was created, the origin of the phase times in the report. */
+	public final long created = System.nanoTime();
+
+	final LinkedHashMap<String, Phase> phases = new LinkedHashMap<>();
+
+	public Bootstrap(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * The phases run before anything else of the mod: reflection access and the opening of the JDK modules. They form a single
+	 * chain, so there is nothing to run in parallel yet and the mod runs them on its own thread with {@link #run(Executor)}.
+	 */
+	public static Bootstrap early() {
+		Bootstrap bootstrap = new Bootstrap(HeavyindustryMod.MODID);
+		bootstrap.phase("reflects", Reflects::init);
+		bootstrap.phase("modules", () -> {
+			Demodulator.init();
+			Demodulator.openModules();
+		}, "reflects");
+		return bootstrap;
+	}
+
+	/**
+	 * Add a phase to be run by {@link #run()}.
+	 *
+	 * @param dependencies The phases that must have succeeded before this one starts, they must already be added and must
+	 *                     not be deferred
+	 * @throws IllegalArgumentException If the name is taken or a dependency is unknown or deferred.
+	 */
+	public synchronized Bootstrap phase(String name, Task task, String... dependencies) {
+		Phase[] after = new Phase[dependencies.length];
+		for (int i = 0; i < dependencies.length; i++) {
+			after[i] = phases.get(dependencies[i]);
+			if (after[i] == null) throw new IllegalArgumentException("unknown phase '" + dependencies[i] + "' required by '" + name + "'");
+			// A deferred phase is not run by run(), so the phase would always be skipped.
+			if (after[i].deferred) throw new IllegalArgumentException("deferred phase '" + dependencies[i] + "' required by '" + name + "'");
+		}
+
+		if (phases.putIfAbsent(name, new Phase(name, task, after, false)) != null) throw new IllegalArgumentException("duplicate phase '" + name + "'");
+		return this;
+	}
+
+	/** Add a phase that only runs on its first {@link #ensure(String)}. */
+	public synchronized Bootstrap defer(String name, Task task) {
+		if (phases.putIfAbsent(name, new Phase(name, task, new Phase[0], true)) != null) throw new IllegalArgumentException("duplicate phase '" + name + "'");
+		return this;
+	}
+
+	/** Run the pending phases on the common pool and wait for them. */
+	public boolean run() {
+		return run(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Run every phase that has not run yet and is not deferred, each as soon as its dependencies are done, and wait for all of
+	 * them. Failures are logged and recorded in the report, they are not thrown.
+	 *
+	 * @return Whether all phases succeeded
+	 */
+	public boolean run(Executor executor) {
+		ArrayList<Phase> pending = new ArrayList<>();
+		synchronized (this) {
+			for (Phase phase : phases.values()) {
+				if (!phase.deferred && phase.status == Status.PENDING) pending.add(phase);
+			}
+		}
+
+		// Dependencies are always added first, so their futures exist when a phase is chained to them.
+		for (Phase phase : pending) {
+			CompletableFuture<?>[] after = new CompletableFuture<?>[phase.after.length];
+			for (int i = 0; i < after.length; i++) {
+				after[i] = phase.after[i].future != null ? phase.after[i].future : CompletableFuture.completedFuture(null);
+			}
+			phase.future = CompletableFuture.allOf(after).thenRunAsync(phase::execute, executor);
+		}
+
+		boolean success = true;
+		for (Phase phase : pending) {
+			phase.future.join();
+			success &= phase.status == Status.DONE;
+		}
+		return success;
+	}
+
+	/**
+	 * Run a section on the calling thread right away and record it as a phase.
+	 *
+	 * @throws RuntimeException If the section fails, after the failure has been recorded.
+	 */
+	public void record(String name, Task task) {
+		Phase phase = new Phase(name, task, new Phase[0], false);
+		synchronized (this) {
+			if (phases.putIfAbsent(name, phase) != null) throw new IllegalArgumentException("duplicate phase '" + name + "'");
+		}
+
+		phase.execute();
+		if (phase.failure != null) throw new RuntimeException("Startup phase '" + name + "' failed", phase.failure);
+	}
+
+	/** Run a deferred phase if it has not run yet, or wait for it if another thread is running it. */
+	public void ensure(String name) {
+		Phase phase;
+		synchronized (this) {
+			phase = phases.get(name);
+		}
+		if (phase == null) throw new IllegalArgumentException("unknown phase '" + name + "'");
+
+		synchronized (phase) {
+			if (phase.status == Status.PENDING) phase.execute();
+		}
+	}
+
+	public synchronized Status status(String name) {
+		Phase phase = phases.get(name);
+		return phase == null ? null : phase.status;
+	}
+
+	/** @return The time the phase took in nanoseconds, or -1 if it has not finished. */
+	public synchronized long nanos(String name) {
+		Phase phase = phases.get(name);
+		return phase == null || phase.end == 0l ? -1l : phase.end - phase.start;
+	}
+
+	/** @return A table of the phases with their status, duration, start relative to the creation of this bootstrap and thread. */
+	public synchronized String report() {
+		long total = 0l, last = created;
+		for (Phase phase : phases.values()) {
+			if (phase.end == 0l) continue;
+			total += phase.end - phase.start;
+			last = Math.max(last, phase.end);
+		}
+
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format(Locale.ROOT, "Startup of %s: %d phases, %.3f ms in phases, %.3f ms since start%n",
+				name, phases.size(), total / 1e6, (last - created) / 1e6));
+
+		for (Phase phase : phases.values()) {
+			builder.append(String.format(Locale.ROOT, "  %-24s %-8s", phase.name, phase.status));
+			if (phase.end != 0l) {
+				builder.append(String.format(Locale.ROOT, " %10.3f ms  at %10.3f ms  [%s]", (phase.end - phase.start) / 1e6, (phase.start - created) / 1e6, phase.thread));
+			}
+			builder.append(System.lineSeparator());
+		}
+		return builder.toString();
+	}
+
+	/** Write the timings as CSV to the file named by the system property {@code heavyindustry.startupReport}, if it is set. */
+	public void writeReport() {
+		String file = System.getProperty("heavyindustry.startupReport");
+		if (file == null || file.isEmpty()) return;
+
+		StringBuilder builder = new StringBuilder("phase,status,start_nanos,nanos,thread\n");
+		synchronized (this) {
+			for (Phase phase : phases.values()) {
+				boolean finished = phase.end != 0l;
+				builder.append(phase.name).append(',').append(phase.status).append(',')
+						.append(finished ? phase.start - created : -1l).append(',')
+						.append(finished ? phase.end - phase.start : -1l).append(',')
+						.append(finished ? phase.thread : "").append('\n');
+			}
+		}
+
+		try {
+			Files.writeString(Path.of(file), builder);
+		} catch (IOException e) {
+			LOGGER.warn("Could not write the startup report to {}", file, e);
+		}
+	}
+
+	public enum Status {
+		PENDING, RUNNING, DONE, FAILED, SKIPPED
+	}
+
+	/** The work of a phase, which may throw anything. */
+	@FunctionalInterface
+	public interface Task {
+		void run() throws Throwable;
+	}
+
+	static final class Phase {
+		final String name;
+		final Task task;
+		final Phase[] after;
+		final boolean deferred;
+
+		volatile Status status = Status.PENDING;
+		volatile long start, end;
+		volatile String thread;
+		volatile Throwable failure;
+
+		CompletableFuture<Void> future;
+
+		Phase(String name, Task task, Phase[] after, boolean deferred) {
+			this.name = name;
+			this.task = task;
+			this.after = after;
+			this.deferred = deferred;
+		}
+
+		void execute() {
+			for (Phase phase : after) {
+				if (phase.status != Status.DONE) {
+					status = Status.SKIPPED;
+					LOGGER.warn("Startup phase '{}' skipped, '{}' did not succeed", name, phase.name);
+					return;
+				}
+			}
+
+			status = Status.RUNNING;
+			thread = Thread.currentThread().getName();
+			start = System.nanoTime();
+			try {
+				task.run();
+				status = Status.DONE;
+			} catch (Throwable e) {
+				failure = e;
+				status = Status.FAILED;
+				LOGGER.warn("Startup phase '{}' failed", name, e);
+			} finally {
+				end = System.nanoTime();
+			}
+		}
+	}
+}
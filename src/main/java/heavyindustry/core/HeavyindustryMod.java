@@ -1,8 +1,7 @@
 package heavyindustry.core;
 
 import com.mojang.logging.LogUtils;
-import heavyindustry.util.Demodulator;
-import heavyindustry.util.Reflects;
+import heavyindustry.util.Unsafes;
 import net.minecraft.client.Minecraft;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.world.food.FoodProperties;
@@ -74,15 +73,15 @@ public final class HeavyindustryMod {
                 output.accept(EXAMPLE_ITEM.get()); // Add the example item to the tab. For your own tabs, this method is preferred over the event
             }).build());
 
+	// Timings of the startup, reported at the end of the common setup.
+	static final Bootstrap BOOTSTRAP = Bootstrap.early();
+
 	static {
-		try {
-			Reflects.init();
-
-			Demodulator.init();
-			Demodulator.openModules();
-		} catch (Throwable e) {
-			LOGGER.warn("Initialization of Reflects failed", e);
-		}
+		// The early phases are one chain without independent work, so they run on this thread instead of the common pool.
+		BOOTSTRAP.run(Runnable::run);
+
+		// Decided once, after the modules have been opened or have failed to open.
+		BOOTSTRAP.record("backend", () -> LOGGER.info("Field and atomic operations use the {} backend", Unsafes.backend()));
 	}
 
     public HeavyindustryMod(FMLJavaModLoadingContext context) {
@@ -103,18 +102,26 @@ public final class HeavyindustryMod {
 
         // Register our mod's ForgeConfigSpec so that Forge can create and load the config file for us
         context.registerConfig(ModConfig.Type.COMMON, Config.SPEC);
+
+		// Only walked when someone reads it at debug level.
+		BOOTSTRAP.defer("config items", () -> Config.items.forEach((item) -> LOGGER.debug("ITEM >> {}", item)));
     }
 
     private void commonSetup(final FMLCommonSetupEvent event) {
-        // Some common setup code
-        LOGGER.info("HELLO FROM COMMON SETUP");
+		BOOTSTRAP.record("common setup", () -> {
+			// Some common setup code
+			LOGGER.info("HELLO FROM COMMON SETUP");
+
+			if (Config.logDirtBlock)
+				LOGGER.info("DIRT BLOCK >> {}", ForgeRegistries.BLOCKS.getKey(Blocks.DIRT));
 
-        if (Config.logDirtBlock)
-            LOGGER.info("DIRT BLOCK >> {}", ForgeRegistries.BLOCKS.getKey(Blocks.DIRT));
+			LOGGER.info("{}{}", Config.magicNumberIntroduction, Config.magicNumber);
 
-	    LOGGER.info("{}{}", Config.magicNumberIntroduction, Config.magicNumber);
+			if (LOGGER.isDebugEnabled()) BOOTSTRAP.ensure("config items");
+		});
 
-        Config.items.forEach((item) -> LOGGER.info("ITEM >> {}", item.toString()));
+		LOGGER.info(BOOTSTRAP.report());
+		BOOTSTRAP.writeReport();
     }
 
     // Add the example block item to the building blocks tab
@@ -0,0 +1,214 @@
+package heavyindustry.util;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates accessors for fields and methods as hidden classes, so that reading a field or calling a method through them is a
+ * plain {@code getfield} or {@code invokevirtual} instruction that the JIT inlines like ordinary code, without boxing of
+ * primitive values for the typed methods.
+ * <p>The bytecode is built with the class maker of the dynamilizer library by {@link Bytecodes} and defined through
+ * {@link Reflects#lookup()} as a hidden nestmate of the declaring class, which grants it access to private members. The
+ * accessors are cached per member.
+ * <p>A generated accessor can not be used for every member, the following fall back to slower implementations:
+ * <ul><li>Final fields, which can not be set by bytecode outside their class, use {@link Unsafes#accessor(Field)}.
+ * <li>Members of hidden classes, interfaces, or classes whose class loader can not see the accessor interfaces, use
+ * {@link Unsafes#accessor(Field)} for fields and a method handle for methods.
+ * <li>Everything before {@link Reflects#init()} has been called, or when the dynamilizer library is missing.
+ * <li>Members whose class could not be generated or defined, which is logged at debug level.</ul>
+ * <p>Unlike {@link FieldAccessor}, a generated accessor throws {@link ClassCastException} if the object is not an instance
+ * of the declaring class.
+ *
+ * @since 1.0.8
+ */
+public final class AccessorGenerator {
+	/** Whether the class maker of the dynamilizer library is present, without it every member uses the fallbacks. */
+	static final boolean classMaker = isPresent("dynamilize.classmaker.ClassInfo");
+
+	static final ClassValue<ConcurrentHashMap<Member, Object>> accessors = new ClassValue<>() {
+		@Override
+		protected ConcurrentHashMap<Member, Object> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private static final Logger LOGGER = LogUtils.getLogger();
+
+	static final String[] TYPE_NAMES = {"Bool", "Byte", "Short", "Int", "Long", "Float", "Double", "Char"};
+	static final Class<?>[] TYPES = {boolean.class, byte.class, short.class, int.class, long.class, float.class, double.class, char.class};
+
+	private AccessorGenerator() {}
+
+	/** Get the cached accessor of a field, generating it on first use. */
+	public static FieldAccess field(Field field) {
+		return (FieldAccess) accessors.get(field.getDeclaringClass()).computeIfAbsent(field, k -> createField(field));
+	}
+
+	/** @return The accessor of a declared field of the class, or null if there is no field of that name */
+	public static FieldAccess field(Class<?> type, String name) {
+		Field field = Reflects.getField(type, name);
+		return field == null ? null : field(field);
+	}
+
+	/** Get the cached invoker of a method, generating it on first use. */
+	public static MethodInvoker method(Method method) {
+		return (MethodInvoker) accessors.get(method.getDeclaringClass()).computeIfAbsent(method, k -> createMethod(method));
+	}
+
+	/** @return The invoker of a declared method of the class, or null if there is no such method */
+	public static MethodInvoker method(Class<?> type, String name, Class<?>... args) {
+		Method method = Reflects.getMethod(type, name, args);
+		return method == null ? null : method(method);
+	}
+
+	/** Whether the members of the class can be accessed by a generated hidden class. */
+	static boolean canGenerate(Class<?> host, Class<?> accessor) {
+		if (!classMaker || Reflects.lookup == null || host.isHidden() || host.isInterface() || host.isArray() || host.isPrimitive()) return false;
+
+		try {
+			return Class.forName(accessor.getName(), false, host.getClassLoader()) == accessor;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	static FieldAccess createField(Field field) {
+		if (Modifier.isFinal(field.getModifiers()) || !canGenerate(field.getDeclaringClass(), FieldAccess.class)) return Unsafes.accessor(field);
+
+		try {
+			return (FieldAccess) define(field.getDeclaringClass(), Bytecodes.fieldAccess(field));
+		} catch (VirtualMachineError e) {
+			throw e;
+		} catch (Throwable e) {
+			// Logged once per field, the fallback is cached like a generated accessor.
+			LOGGER.debug("Could not generate the accessor of {}, falling back to a slower one", field, e);
+			return Unsafes.accessor(field);
+		}
+	}
+
+	static MethodInvoker createMethod(Method method) {
+		if (canGenerate(method.getDeclaringClass(), MethodInvoker.class)) {
+			try {
+				return (MethodInvoker) define(method.getDeclaringClass(), Bytecodes.methodInvoker(method));
+			} catch (VirtualMachineError e) {
+				throw e;
+			} catch (Throwable e) {
+				LOGGER.debug("Could not generate the invoker of {}, falling back to a method handle", method, e);
+			}
+		}
+		return new HandleInvoker(method);
+	}
+
+	/** Define the class as a hidden nestmate of the host and create its instance. */
+	static Object define(Class<?> host, byte[] bytes) throws Throwable {
+		Lookup lookup = Reflects.lookup.in(host).defineHiddenClass(bytes, true, Lookup.ClassOption.NESTMATE);
+		return lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+	}
+
+	static boolean isPresent(String name) {
+		try {
+			Class.forName(name, false, AccessorGenerator.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	static int indexOf(Class<?> type) {
+		for (int i = 0; i < TYPES.length; i++) {
+			if (TYPES[i] == type) return i;
+		}
+		throw new IllegalArgumentException("unknown type " + type);
+	}
+
+	/** Invokes through a method handle spreading the argument array, for methods that can not have a generated invoker. */
+	static final class HandleInvoker implements MethodInvoker {
+		final MethodHandle handle;
+		final Class<?> returns;
+
+		HandleInvoker(Method method) {
+			returns = method.getReturnType();
+
+			try {
+				MethodHandle target = Reflects.lookup != null ? Reflects.lookup.unreflect(method) : MethodHandles.lookup().unreflect(accessible(method));
+				if (Modifier.isStatic(method.getModifiers())) target = MethodHandles.dropArguments(target, 0, Object.class);
+
+				handle = target.asSpreader(Object[].class, method.getParameterCount())
+						.asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		static Method accessible(Method method) {
+			method.setAccessible(true);
+			return method;
+		}
+
+		@Override
+		public Object invoke(Object target, Object... args) {
+			try {
+				return handle.invokeExact(target, args);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		Object typed(Class<?> type, String method, Object target, Object[] args) {
+			if (returns != type) throw new IllegalArgumentException("Method '" + method + "' does not support method other than " + type.getName() + " types");
+			return invoke(target, args);
+		}
+
+		@Override
+		public boolean invokeBool(Object target, Object... args) {
+			return (boolean) typed(boolean.class, "invokeBool", target, args);
+		}
+
+		@Override
+		public byte invokeByte(Object target, Object... args) {
+			return (byte) typed(byte.class, "invokeByte", target, args);
+		}
+
+		@Override
+		public short invokeShort(Object target, Object... args) {
+			return (short) typed(short.class, "invokeShort", target, args);
+		}
+
+		@Override
+		public int invokeInt(Object target, Object... args) {
+			return (int) typed(int.class, "invokeInt", target, args);
+		}
+
+		@Override
+		public long invokeLong(Object target, Object... args) {
+			return (long) typed(long.class, "invokeLong", target, args);
+		}
+
+		@Override
+		public float invokeFloat(Object target, Object... args) {
+			return (float) typed(float.class, "invokeFloat", target, args);
+		}
+
+		@Override
+		public double invokeDouble(Object target, Object... args) {
+			return (double) typed(double.class, "invokeDouble", target, args);
+		}
+
+		@Override
+		public char invokeChar(Object target, Object... args) {
+			return (char) typed(char.class, "invokeChar", target, args);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package heavyindustry.util;
+
+import jdk.internal.misc.Unsafe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A fixed size bit set whose bits can be set concurrently by multiple threads. Setting a bit is done through a CAS loop on
+ * the containing word, so {@link #set(int)} reports exactly one winner for each bit even under contention.
+ * <p>The size of the set is fixed at construction time, it does not grow.
+ * <p>The words are accessed through {@code Unsafe} if it is {@link Unsafes#available}, through an array element
+ * {@link VarHandle} otherwise.
+ *
+ * @since 1.0.8
+ */
+public class AtomicBitSet {
+	private static final boolean UNSAFE = Unsafes.available;
+	private static final Unsafe U = Unsafes.unsafe;
+	private static final long BASE = UNSAFE ? U.arrayBaseOffset(long[].class) : -1l;
+	private static final int SHIFT = UNSAFE ? 31 - Integer.numberOfLeadingZeros(U.arrayIndexScale(long[].class)) : -1;
+	private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	protected final long[] words;
+	protected final int size;
+
+	/** Creates a bit set that is able to hold bits with indices in range {@code [0, size)}. */
+	public AtomicBitSet(int size) {
+		if (size < 0) throw new IllegalArgumentException("size must be >= 0: " + size);
+		this.size = size;
+		words = new long[(size + 63) >>> 6];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/** @return Whether the bit at {@code index} has been set. */
+	public boolean get(int index) {
+		int word = word(index);
+		long value = UNSAFE ? U.getLongVolatile(words, BASE + ((long) word << SHIFT)) : (long) WORDS.getVolatile(words, word);
+		return (value & (1l << index)) != 0;
+	}
+
+	/**
+	 * Atomically sets the bit at {@code index}.
+	 *
+	 * @return true if this call changed the bit, false if it had already been set
+	 */
+	public boolean set(int index) {
+		int word = word(index);
+		long mask = 1l << index;
+
+		if (!UNSAFE) {
+			long value;
+			do {
+				value = (long) WORDS.getVolatile(words, word);
+				if ((value & mask) != 0) return false;
+			} while (!WORDS.weakCompareAndSet(words, word, value, value | mask));
+			return true;
+		}
+
+		long offset = BASE + ((long) word << SHIFT);
+		long value;
+		do {
+			value = U.getLongVolatile(words, offset);
+			if ((value & mask) != 0) return false;
+		} while (!U.weakCompareAndSetLong(words, offset, value, value | mask));
+		return true;
+	}
+
+	/** Sets the bit at {@code index} without any memory ordering, must not race with other writers. */
+	public void setPlain(int index) {
+		words[index >>> 6] |= 1l << index;
+	}
+
+	/** Clears all bits, must not race with other writers. */
+	public void clear() {
+		Arrays.fill(words, 0l);
+	}
+
+	/** @return The number of bits set to true. */
+	public int cardinality() {
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	private int word(int index) {
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index out of range: " + index);
+		return index >>> 6;
+	}
+}
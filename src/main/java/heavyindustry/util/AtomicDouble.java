@@ -3,14 +3,26 @@ package heavyindustry.util;
 import jdk.internal.misc.Unsafe;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.DoubleUnaryOperator;
 
 public class AtomicDouble extends Number implements Serializable {
 	private static final long serialVersionUID = 572795237818305608l;
 
-	private static final Unsafe U = Unsafe.getUnsafe();
-	private static final long VALUE = U.objectFieldOffset(AtomicDouble.class, "value");
+	private static final boolean UNSAFE = Unsafes.available;
+	private static final Unsafe U = Unsafes.unsafe;
+	private static final long VALUE = UNSAFE ? U.objectFieldOffset(AtomicDouble.class, "value") : -1l;
+	private static final VarHandle VH;
+
+	static {
+		try {
+			VH = MethodHandles.lookup().findVarHandle(AtomicDouble.class, "value", double.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
 
 	private volatile double value;
 
@@ -25,52 +37,54 @@ public class AtomicDouble extends Number implements Serializable {
 	}
 
 	public final void set(double newValue) {
-		U.putDoubleVolatile(this, VALUE, newValue);
+		if (UNSAFE) U.putDoubleVolatile(this, VALUE, newValue);
+		else VH.setVolatile(this, newValue);
 	}
 
 	public final void lazySet(double newValue) {
-		U.putDoubleRelease(this, VALUE, newValue);
+		if (UNSAFE) U.putDoubleRelease(this, VALUE, newValue);
+		else VH.setRelease(this, newValue);
 	}
 
 	public final double getAndSet(double newValue) {
-		return U.getAndSetDouble(this, VALUE, newValue);
+		return UNSAFE ? U.getAndSetDouble(this, VALUE, newValue) : (double) VH.getAndSet(this, newValue);
 	}
 
 	public final boolean compareAndSet(double expectedValue, double newValue) {
-		return U.compareAndSetDouble(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.compareAndSetDouble(this, VALUE, expectedValue, newValue) : VH.compareAndSet(this, expectedValue, newValue);
 	}
 
 	@Deprecated(since = "9")
 	public final boolean weakCompareAndSet(double expectedValue, double newValue) {
-		return U.weakCompareAndSetDoublePlain(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetDoublePlain(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSetPlain(this, expectedValue, newValue);
 	}
 
 	public final boolean weakCompareAndSetPlain(double expectedValue, double newValue) {
-		return U.weakCompareAndSetDoublePlain(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetDoublePlain(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSetPlain(this, expectedValue, newValue);
 	}
 
 	public final double getAndIncrement() {
-		return U.getAndAddDouble(this, VALUE, 1d);
+		return UNSAFE ? U.getAndAddDouble(this, VALUE, 1d) : (double) VH.getAndAdd(this, 1d);
 	}
 
 	public final double getAndDecrement() {
-		return U.getAndAddDouble(this, VALUE, -1d);
+		return UNSAFE ? U.getAndAddDouble(this, VALUE, -1d) : (double) VH.getAndAdd(this, -1d);
 	}
 
 	public final double getAndAdd(double delta) {
-		return U.getAndAddDouble(this, VALUE, delta);
+		return UNSAFE ? U.getAndAddDouble(this, VALUE, delta) : (double) VH.getAndAdd(this, delta);
 	}
 
 	public final double incrementAndGet() {
-		return U.getAndAddDouble(this, VALUE, 1d) + 1d;
+		return UNSAFE ? U.getAndAddDouble(this, VALUE, 1d) + 1d : (double) VH.getAndAdd(this, 1d) + 1d;
 	}
 
 	public final double decrementAndGet() {
-		return U.getAndAddDouble(this, VALUE, -1d) - 1d;
+		return UNSAFE ? U.getAndAddDouble(this, VALUE, -1d) - 1d : (double) VH.getAndAdd(this, -1d) - 1d;
 	}
 
 	public final double addAndGet(double delta) {
-		return U.getAndAddDouble(this, VALUE, delta) + delta;
+		return UNSAFE ? U.getAndAddDouble(this, VALUE, delta) + delta : (double) VH.getAndAdd(this, delta) + delta;
 	}
 
 	public final double getAndUpdate(DoubleUnaryOperator updateFunction) {
@@ -153,50 +167,53 @@ public class AtomicDouble extends Number implements Serializable {
 	}
 
 	public final double getPlain() {
-		return U.getDouble(this, VALUE);
+		return UNSAFE ? U.getDouble(this, VALUE) : (double) VH.get(this);
 	}
 
 	public final void setPlain(double newValue) {
-		U.putDouble(this, VALUE, newValue);
+		if (UNSAFE) U.putDouble(this, VALUE, newValue);
+		else VH.set(this, newValue);
 	}
 
 	public final double getOpaque() {
-		return U.getDoubleOpaque(this, VALUE);
+		return UNSAFE ? U.getDoubleOpaque(this, VALUE) : (double) VH.getOpaque(this);
 	}
 
 	public final void setOpaque(double newValue) {
-		U.putDoubleOpaque(this, VALUE, newValue);
+		if (UNSAFE) U.putDoubleOpaque(this, VALUE, newValue);
+		else VH.setOpaque(this, newValue);
 	}
 
 	public final double getAcquire() {
-		return U.getDoubleAcquire(this, VALUE);
+		return UNSAFE ? U.getDoubleAcquire(this, VALUE) : (double) VH.getAcquire(this);
 	}
 
 	public final void setRelease(double newValue) {
-		U.putDoubleRelease(this, VALUE, newValue);
+		if (UNSAFE) U.putDoubleRelease(this, VALUE, newValue);
+		else VH.setRelease(this, newValue);
 	}
 
 	public final double compareAndExchange(double expectedValue, double newValue) {
-		return U.compareAndExchangeDouble(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.compareAndExchangeDouble(this, VALUE, expectedValue, newValue) : (double) VH.compareAndExchange(this, expectedValue, newValue);
 	}
 
 	public final double compareAndExchangeAcquire(double expectedValue, double newValue) {
-		return U.compareAndExchangeDoubleAcquire(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.compareAndExchangeDoubleAcquire(this, VALUE, expectedValue, newValue) : (double) VH.compareAndExchangeAcquire(this, expectedValue, newValue);
 	}
 
 	public final double compareAndExchangeRelease(double expectedValue, double newValue) {
-		return U.compareAndExchangeDoubleRelease(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.compareAndExchangeDoubleRelease(this, VALUE, expectedValue, newValue) : (double) VH.compareAndExchangeRelease(this, expectedValue, newValue);
 	}
 
 	public final boolean weakCompareAndSetVolatile(double expectedValue, double newValue) {
-		return U.weakCompareAndSetDouble(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetDouble(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSet(this, expectedValue, newValue);
 	}
 
 	public final boolean weakCompareAndSetAcquire(double expectedValue, double newValue) {
-		return U.weakCompareAndSetDoubleAcquire(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetDoubleAcquire(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSetAcquire(this, expectedValue, newValue);
 	}
 
 	public final boolean weakCompareAndSetRelease(double expectedValue, double newValue) {
-		return U.weakCompareAndSetDoubleRelease(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetDoubleRelease(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSetRelease(this, expectedValue, newValue);
 	}
 }
@@ -5,12 +5,24 @@ import heavyindustry.util.function.FloatUnaryOperator;
 import jdk.internal.misc.Unsafe;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 public class AtomicFloat extends Number implements Serializable {
 	private static final long serialVersionUID = 8826071785285943139l;
 
-	private static final Unsafe U = Unsafe.getUnsafe();
-	private static final long VALUE = U.objectFieldOffset(AtomicFloat.class, "value");
+	private static final boolean UNSAFE = Unsafes.available;
+	private static final Unsafe U = Unsafes.unsafe;
+	private static final long VALUE = UNSAFE ? U.objectFieldOffset(AtomicFloat.class, "value") : -1l;
+	private static final VarHandle VH;
+
+	static {
+		try {
+			VH = MethodHandles.lookup().findVarHandle(AtomicFloat.class, "value", float.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
 
 	private volatile float value;
 
@@ -25,52 +37,54 @@ public class AtomicFloat extends Number implements Serializable {
 	}
 
 	public final void set(float newValue) {
-		U.putFloatVolatile(this, VALUE, newValue);
+		if (UNSAFE) U.putFloatVolatile(this, VALUE, newValue);
+		else VH.setVolatile(this, newValue);
 	}
 
 	public final void lazySet(float newValue) {
-		U.putFloatRelease(this, VALUE, newValue);
+		if (UNSAFE) U.putFloatRelease(this, VALUE, newValue);
+		else VH.setRelease(this, newValue);
 	}
 
 	public final float getAndSet(float newValue) {
-		return U.getAndSetFloat(this, VALUE, newValue);
+		return UNSAFE ? U.getAndSetFloat(this, VALUE, newValue) : (float) VH.getAndSet(this, newValue);
 	}
 
 	public final boolean compareAndSet(float expectedValue, float newValue) {
-		return U.compareAndSetFloat(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.compareAndSetFloat(this, VALUE, expectedValue, newValue) : VH.compareAndSet(this, expectedValue, newValue);
 	}
 
 	@Deprecated(since = "9")
 	public final boolean weakCompareAndSet(float expectedValue, float newValue) {
-		return U.weakCompareAndSetFloatPlain(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetFloatPlain(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSetPlain(this, expectedValue, newValue);
 	}
 
 	public final boolean weakCompareAndSetPlain(float expectedValue, float newValue) {
-		return U.weakCompareAndSetFloatPlain(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetFloatPlain(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSetPlain(this, expectedValue, newValue);
 	}
 
 	public final float getAndIncrement() {
-		return U.getAndAddFloat(this, VALUE, 1f);
+		return UNSAFE ? U.getAndAddFloat(this, VALUE, 1f) : (float) VH.getAndAdd(this, 1f);
 	}
 
 	public final float getAndDecrement() {
-		return U.getAndAddFloat(this, VALUE, -1f);
+		return UNSAFE ? U.getAndAddFloat(this, VALUE, -1f) : (float) VH.getAndAdd(this, -1f);
 	}
 
 	public final float getAndAdd(float delta) {
-		return U.getAndAddFloat(this, VALUE, delta);
+		return UNSAFE ? U.getAndAddFloat(this, VALUE, delta) : (float) VH.getAndAdd(this, delta);
 	}
 
 	public final float incrementAndGet() {
-		return U.getAndAddFloat(this, VALUE, 1f) + 1f;
+		return UNSAFE ? U.getAndAddFloat(this, VALUE, 1f) + 1f : (float) VH.getAndAdd(this, 1f) + 1f;
 	}
 
 	public final float decrementAndGet() {
-		return U.getAndAddFloat(this, VALUE, -1f) - 1f;
+		return UNSAFE ? U.getAndAddFloat(this, VALUE, -1f) - 1f : (float) VH.getAndAdd(this, -1f) - 1f;
 	}
 
 	public final float addAndGet(float delta) {
-		return U.getAndAddFloat(this, VALUE, delta) + delta;
+		return UNSAFE ? U.getAndAddFloat(this, VALUE, delta) + delta : (float) VH.getAndAdd(this, delta) + delta;
 	}
 
 	public final float getAndUpdate(FloatUnaryOperator updateFunction) {
@@ -153,50 +167,53 @@ public class AtomicFloat extends Number implements Serializable {
 	}
 
 	public final float getPlain() {
-		return U.getFloat(this, VALUE);
+		return UNSAFE ? U.getFloat(this, VALUE) : (float) VH.get(this);
 	}
 
 	public final void setPlain(float newValue) {
-		U.putFloat(this, VALUE, newValue);
+		if (UNSAFE) U.putFloat(this, VALUE, newValue);
+		else VH.set(this, newValue);
 	}
 
 	public final float getOpaque() {
-		return U.getFloatOpaque(this, VALUE);
+		return UNSAFE ? U.getFloatOpaque(this, VALUE) : (float) VH.getOpaque(this);
 	}
 
 	public final void setOpaque(float newValue) {
-		U.putFloatOpaque(this, VALUE, newValue);
+		if (UNSAFE) U.putFloatOpaque(this, VALUE, newValue);
+		else VH.setOpaque(this, newValue);
 	}
 
 	public final float getAcquire() {
-		return U.getFloatAcquire(this, VALUE);
+		return UNSAFE ? U.getFloatAcquire(this, VALUE) : (float) VH.getAcquire(this);
 	}
 
 	public final void setRelease(float newValue) {
-		U.putFloatRelease(this, VALUE, newValue);
+		if (UNSAFE) U.putFloatRelease(this, VALUE, newValue);
+		else VH.setRelease(this, newValue);
 	}
 
 	public final float compareAndExchange(float expectedValue, float newValue) {
-		return U.compareAndExchangeFloat(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.compareAndExchangeFloat(this, VALUE, expectedValue, newValue) : (float) VH.compareAndExchange(this, expectedValue, newValue);
 	}
 
 	public final float compareAndExchangeAcquire(float expectedValue, float newValue) {
-		return U.compareAndExchangeFloatAcquire(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.compareAndExchangeFloatAcquire(this, VALUE, expectedValue, newValue) : (float) VH.compareAndExchangeAcquire(this, expectedValue, newValue);
 	}
 
 	public final float compareAndExchangeRelease(float expectedValue, float newValue) {
-		return U.compareAndExchangeFloatRelease(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.compareAndExchangeFloatRelease(this, VALUE, expectedValue, newValue) : (float) VH.compareAndExchangeRelease(this, expectedValue, newValue);
 	}
 
 	public final boolean weakCompareAndSetVolatile(float expectedValue, float newValue) {
-		return U.weakCompareAndSetFloat(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetFloat(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSet(this, expectedValue, newValue);
 	}
 
 	public final boolean weakCompareAndSetAcquire(float expectedValue, float newValue) {
-		return U.weakCompareAndSetFloatAcquire(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetFloatAcquire(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSetAcquire(this, expectedValue, newValue);
 	}
 
 	public final boolean weakCompareAndSetRelease(float expectedValue, float newValue) {
-		return U.weakCompareAndSetFloatRelease(this, VALUE, expectedValue, newValue);
+		return UNSAFE ? U.weakCompareAndSetFloatRelease(this, VALUE, expectedValue, newValue) : VH.weakCompareAndSetRelease(this, expectedValue, newValue);
 	}
 }
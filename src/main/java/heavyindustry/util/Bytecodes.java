@@ -0,0 +1,236 @@
+package heavyindustry.util;
+
+import dynamilize.classmaker.ASMGenerator;
+import dynamilize.classmaker.BaseClassLoader;
+import dynamilize.classmaker.ClassInfo;
+import dynamilize.classmaker.CodeBlock;
+import dynamilize.classmaker.Parameter;
+import dynamilize.classmaker.code.IClass;
+import dynamilize.classmaker.code.IField;
+import dynamilize.classmaker.code.ILocal;
+import dynamilize.classmaker.code.IMethod;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Builds the class files of {@link AccessorGenerator} and {@link StructLayout} with the class maker of the dynamilizer library.
+ * <p>This is the only class that refers to the library, and only {@code byte[]} leaves it. The classes calling it therefore
+ * load without the library, and check {@link AccessorGenerator#classMaker} before getting here.
+ *
+ * @since 1.0.8
+ */
+final class Bytecodes {
+	/** The class file version of the generated classes, Java 21. */
+	static final int CODE_VERSION = 65;
+
+	private Bytecodes() {}
+
+	/** @return The class file of a {@link FieldAccess} to the field, named after its declaring class */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static byte[] fieldAccess(Field field) {
+		ClassInfo<?> info = declare(field.getDeclaringClass(), "FieldAccess", FieldAccess.class);
+		ClassInfo host = ClassInfo.asType(field.getDeclaringClass());
+		ClassInfo type = ClassInfo.asType(field.getType());
+		IField value = host.getField(type, field.getName());
+		boolean isStatic = Modifier.isStatic(field.getModifiers());
+
+		boolean primitive = field.getType().isPrimitive();
+		String suffix = primitive ? AccessorGenerator.TYPE_NAMES[AccessorGenerator.indexOf(field.getType())] : "Object";
+
+		// The typed getter returns the value as it is, the generic one boxes primitive values.
+		for (String name : new String[]{"get" + suffix, "get"}) {
+			ClassInfo returns = primitive && !name.equals("get") ? type : ClassInfo.OBJECT_TYPE;
+			CodeBlock get = info.declareMethod(Modifier.PUBLIC, name, returns, new Parameter<>(0, ClassInfo.OBJECT_TYPE, "object"));
+
+			ILocal result = get.local(type);
+			if (isStatic) {
+				get.assignStatic(result, value);
+			} else {
+				ILocal instance = get.local(host);
+				get.cast(get.getParam(1), instance);
+				get.assign(instance, value, result);
+			}
+
+			if (returns == type) {
+				get.returnValue(result);
+			} else {
+				ILocal boxed = get.local(ClassInfo.OBJECT_TYPE);
+				get.cast(result, boxed);
+				get.returnValue(boxed);
+			}
+		}
+
+		// The typed setter takes the value as it is, the generic one casts or unboxes it.
+		for (String name : new String[]{"set" + suffix, "set"}) {
+			ClassInfo accepts = primitive && !name.equals("set") ? type : ClassInfo.OBJECT_TYPE;
+			CodeBlock<Void> set = info.declareMethod(Modifier.PUBLIC, name, ClassInfo.VOID_TYPE,
+					new Parameter<>(0, ClassInfo.OBJECT_TYPE, "object"), new Parameter<>(0, accepts, "value"));
+
+			ILocal input = set.getParam(2);
+			if (accepts != type) {
+				input = set.local(type);
+				set.cast(set.getParam(2), input);
+			}
+
+			if (isStatic) {
+				set.assignStatic(value, input);
+			} else {
+				ILocal instance = set.local(host);
+				set.cast(set.getParam(1), instance);
+				set.assign(instance, input, value);
+			}
+			set.returnVoid();
+		}
+
+		return generate(info);
+	}
+
+	/** @return The class file of a {@link MethodInvoker} of the method, named after its declaring class */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static byte[] methodInvoker(Method method) {
+		ClassInfo<?> info = declare(method.getDeclaringClass(), "MethodInvoker", MethodInvoker.class);
+		ClassInfo host = ClassInfo.asType(method.getDeclaringClass());
+		ClassInfo returns = ClassInfo.asType(method.getReturnType());
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		boolean isVoid = method.getReturnType() == void.class;
+
+		Class<?>[] parameters = method.getParameterTypes();
+		IClass[] types = new IClass[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			types[i] = ClassInfo.asType(parameters[i]);
+		}
+		IMethod target = host.getMethod(returns, method.getName(), types);
+
+		// The typed invoker returns the result as it is, the generic one boxes primitive results.
+		for (int pass = 0; pass < 2; pass++) {
+			boolean generic = pass == 1;
+			if (!generic && (isVoid || !method.getReturnType().isPrimitive())) continue;
+
+			ClassInfo declared = generic ? ClassInfo.OBJECT_TYPE : returns;
+			String name = generic ? "invoke" : "invoke" + AccessorGenerator.TYPE_NAMES[AccessorGenerator.indexOf(method.getReturnType())];
+			CodeBlock code = info.declareMethod(Modifier.PUBLIC, name, declared,
+					new Parameter<>(0, ClassInfo.OBJECT_TYPE, "target"), new Parameter<>(0, ClassInfo.OBJECT_TYPE.asArray(), "args"));
+
+			ILocal array = code.getParam(2);
+			ILocal[] args = new ILocal[parameters.length];
+			for (int i = 0; i < parameters.length; i++) {
+				ILocal index = code.local(ClassInfo.INT_TYPE);
+				code.loadConstant(index, i);
+				ILocal element = code.local(ClassInfo.OBJECT_TYPE);
+				code.arrayGet(array, index, element);
+
+				args[i] = code.local(types[i]);
+				code.cast(element, args[i]);
+			}
+
+			ILocal result = isVoid ? null : code.local(returns);
+			if (isStatic) {
+				code.invokeStatic(target, result, args);
+			} else {
+				ILocal instance = code.local(host);
+				code.cast(code.getParam(1), instance);
+				code.invoke(instance, target, result, args);
+			}
+
+			if (isVoid) {
+				ILocal none = code.local(ClassInfo.OBJECT_TYPE);
+				code.loadConstant(none, null);
+				code.returnValue(none);
+			} else if (declared == returns) {
+				code.returnValue(result);
+			} else {
+				ILocal boxed = code.local(ClassInfo.OBJECT_TYPE);
+				code.cast(result, boxed);
+				code.returnValue(boxed);
+			}
+		}
+
+		return generate(info);
+	}
+
+	/**
+	 * @param names The names of the properties, ordered
+	 * @param types The primitive types of the properties
+	 * @return The class file of the {@link StructArray} of a record-like interface, with one array field per property
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static byte[] structArray(Class<?> type, String[] names, Class<?>[] types) {
+		ClassInfo base = ClassInfo.asType(StructArray.class);
+		ClassInfo<?> info = new ClassInfo<>(Modifier.PUBLIC | Modifier.FINAL, type.getName() + "$$StructArray", base, ClassInfo.asType(type));
+
+		CodeBlock<Void> constructor = info.declareConstructor(Modifier.PUBLIC);
+		constructor.invokeSuper(constructor.getThis(), base.getConstructor(), null);
+		constructor.returnVoid();
+
+		IField cursor = base.getField(ClassInfo.INT_TYPE, "index");
+		IField[] fields = new IField[names.length];
+
+		for (int i = 0; i < names.length; i++) {
+			ClassInfo element = ClassInfo.asType(types[i]);
+			ClassInfo column = element.asArray();
+			fields[i] = info.declareField(Modifier.PUBLIC, names[i], column, null);
+
+			// type name() { return name[index]; }
+			CodeBlock get = info.declareMethod(Modifier.PUBLIC, names[i], element);
+			ILocal array = get.local(column), index = get.local(ClassInfo.INT_TYPE), value = get.local(element);
+			get.assign(get.getThis(), fields[i], array);
+			get.assign(get.getThis(), cursor, index);
+			get.arrayGet(array, index, value);
+			get.returnValue(value);
+
+			// void name(type value) { name[index] = value; }
+			CodeBlock<Void> set = info.declareMethod(Modifier.PUBLIC, names[i], ClassInfo.VOID_TYPE, new Parameter<>(0, element, "value"));
+			array = set.local(column);
+			index = set.local(ClassInfo.INT_TYPE);
+			set.assign(set.getThis(), fields[i], array);
+			set.assign(set.getThis(), cursor, index);
+			set.arrayPut(array, index, set.getParam(1));
+			set.returnVoid();
+		}
+
+		ClassInfo objects = ClassInfo.OBJECT_TYPE.asArray();
+
+		// Object[] columns() { return new Object[]{a, b, ...}; }
+		CodeBlock get = info.declareMethod(Modifier.PROTECTED, "columns", objects);
+		ILocal length = get.local(ClassInfo.INT_TYPE), result = get.local(objects);
+		get.loadConstant(length, names.length);
+		get.newArray(ClassInfo.OBJECT_TYPE, result, length);
+		for (int i = 0; i < names.length; i++) {
+			ILocal index = get.local(ClassInfo.INT_TYPE), array = get.local(ClassInfo.asType(types[i]).asArray()), value = get.local(ClassInfo.OBJECT_TYPE);
+			get.loadConstant(index, i);
+			get.assign(get.getThis(), fields[i], array);
+			get.cast(array, value);
+			get.arrayPut(result, index, value);
+		}
+		get.returnValue(result);
+
+		// void columns(Object[] columns) { a = (int[]) columns[0]; ... }
+		CodeBlock<Void> set = info.declareMethod(Modifier.PROTECTED, "columns", ClassInfo.VOID_TYPE, new Parameter<>(0, objects, "columns"));
+		for (int i = 0; i < names.length; i++) {
+			ILocal index = set.local(ClassInfo.INT_TYPE), value = set.local(ClassInfo.OBJECT_TYPE), array = set.local(ClassInfo.asType(types[i]).asArray());
+			set.loadConstant(index, i);
+			set.arrayGet(set.getParam(1), index, value);
+			set.cast(value, array);
+			set.assign(set.getThis(), array, fields[i]);
+		}
+		set.returnVoid();
+
+		return generate(info);
+	}
+
+	/** Declare the accessor class in the package of the host, with a public constructor. */
+	static ClassInfo<?> declare(Class<?> host, String kind, Class<?> accessor) {
+		ClassInfo<?> info = new ClassInfo<>(Modifier.PUBLIC | Modifier.FINAL, host.getName() + "$$" + kind, ClassInfo.OBJECT_TYPE, ClassInfo.asType(accessor));
+
+		CodeBlock<Void> constructor = info.declareConstructor(Modifier.PUBLIC);
+		constructor.invokeSuper(constructor.getThis(), ClassInfo.OBJECT_TYPE.getConstructor(), null);
+		constructor.returnVoid();
+		return info;
+	}
+
+	static byte[] generate(ClassInfo<?> info) {
+		return new ASMGenerator(new BaseClassLoader(Bytecodes.class.getClassLoader()), CODE_VERSION).genByteCode(info);
+	}
+}
@@ -0,0 +1,92 @@
+package heavyindustry.util;
+
+/**
+ * Typed access to the value of one field, without boxing for primitive fields. Only the methods matching the type of the field
+ * are supported, the others throw {@link IllegalArgumentException}. {@link #get(Object)} and {@link #set(Object, Object)} work
+ * for every type but box primitive values.
+ * <p>If the field is {@code static}, the object passed to the methods is ignored and can be {@code null}.
+ *
+ * @see FieldAccessor
+ * @see VarHandleAccessor
+ * @see AccessorGenerator#field(java.lang.reflect.Field)
+ * @since 1.0.8
+ */
+public interface FieldAccess {
+	default <T> T getObject(Object object) {
+		throw new IllegalArgumentException("Method 'getObject' does not support field of primitive types");
+	}
+
+	default boolean getBool(Object object) {
+		throw new IllegalArgumentException("Method 'getBool' does not support field other than boolean types");
+	}
+
+	default byte getByte(Object object) {
+		throw new IllegalArgumentException("Method 'getByte' does not support field other than byte types");
+	}
+
+	default short getShort(Object object) {
+		throw new IllegalArgumentException("Method 'getShort' does not support field other than short types");
+	}
+
+	default int getInt(Object object) {
+		throw new IllegalArgumentException("Method 'getInt' does not support field other than int types");
+	}
+
+	default long getLong(Object object) {
+		throw new IllegalArgumentException("Method 'getLong' does not support field other than long types");
+	}
+
+	default float getFloat(Object object) {
+		throw new IllegalArgumentException("Method 'getFloat' does not support field other than float types");
+	}
+
+	default double getDouble(Object object) {
+		throw new IllegalArgumentException("Method 'getDouble' does not support field other than double types");
+	}
+
+	default char getChar(Object object) {
+		throw new IllegalArgumentException("Method 'getChar' does not support field other than char types");
+	}
+
+	/** Get the value of the field of any type, primitive values are boxed. */
+	Object get(Object object);
+
+	default void setObject(Object object, Object value) {
+		throw new IllegalArgumentException("Method 'setObject' does not support field of primitive types");
+	}
+
+	default void setBool(Object object, boolean value) {
+		throw new IllegalArgumentException("Method 'setBool' does not support field other than boolean types");
+	}
+
+	default void setByte(Object object, byte value) {
+		throw new IllegalArgumentException("Method 'setByte' does not support field other than byte types");
+	}
+
+	default void setShort(Object object, short value) {
+		throw new IllegalArgumentException("Method 'setShort' does not support field other than short types");
+	}
+
+	default void setInt(Object object, int value) {
+		throw new IllegalArgumentException("Method 'setInt' does not support field other than int types");
+	}
+
+	default void setLong(Object object, long value) {
+		throw new IllegalArgumentException("Method 'setLong' does not support field other than long types");
+	}
+
+	default void setFloat(Object object, float value) {
+		throw new IllegalArgumentException("Method 'setFloat' does not support field other than float types");
+	}
+
+	default void setDouble(Object object, double value) {
+		throw new IllegalArgumentException("Method 'setDouble' does not support field other than double types");
+	}
+
+	default void setChar(Object object, char value) {
+		throw new IllegalArgumentException("Method 'setChar' does not support field other than char types");
+	}
+
+	/** Set the value of the field of any type, primitive values must be passed boxed. */
+	void set(Object object, Object value);
+}
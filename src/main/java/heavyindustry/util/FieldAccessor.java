@@ -0,0 +1,339 @@
+package heavyindustry.util;
+
+import jdk.internal.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static heavyindustry.util.Structs.requireAssignableFrom;
+import static heavyindustry.util.Structs.requireNonNullInstance;
+
+/**
+ * A field resolved once for access through {@code Unsafe}. The offset, the static base, the volatility and the type of the
+ * field are computed when the accessor is created, so every typed get or set afterward is a single {@code Unsafe} access
+ * plus a type check of the instance.
+ * <p>Accessors are immutable and can be shared between threads, {@link #of(Field)} returns a cached accessor for each field.
+ * Hold the accessor in a {@code static final} field to let the JIT fold its state into the call site.
+ * <p>If the field is {@code static}, the object passed to the accessor methods is ignored and can be {@code null}. Otherwise,
+ * it must be an instance of the declaring class of the field.
+ * <p><strong>Note: Setting is not useful for fields that can inline values during compilation.</strong>
+ * <p>This class requires {@code Unsafe} to be {@link Unsafes#available}, {@link Unsafes#accessor(Field)} picks a
+ * {@link VarHandleAccessor} otherwise.
+ *
+ * @see FieldAccess
+ * @since 1.0.8
+ */
+public final class FieldAccessor implements FieldAccess {
+	static final Unsafe unsafe = Unsafes.unsafe;
+
+	static final ClassValue<ConcurrentHashMap<Field, FieldAccessor>> accessors = new ClassValue<>() {
+		@Override
+		protected ConcurrentHashMap<Field, FieldAccessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	public final Field field;
+	public final Class<?> type, declaringClass;
+	public final long offset;
+	public final boolean isStatic, isVolatile;
+
+	/** The base object of a static field, null for instance fields. */
+	final Object base;
+
+	FieldAccessor(Field field) {
+		int modifiers = field.getModifiers();
+
+		this.field = field;
+		type = field.getType();
+		declaringClass = field.getDeclaringClass();
+		isStatic = Modifier.isStatic(modifiers);
+		isVolatile = Modifier.isVolatile(modifiers);
+		offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
+		base = isStatic ? unsafe.staticFieldBase(field) : null;
+	}
+
+	/**
+	 * Get the cached accessor of a field, creating it on first use.
+	 *
+	 * @throws UnsupportedOperationException If {@code Unsafe} is not available.
+	 */
+	public static FieldAccessor of(Field field) {
+		if (!Unsafes.available) throw new UnsupportedOperationException("Unsafe is not available");
+
+		return accessors.get(field.getDeclaringClass()).computeIfAbsent(field, FieldAccessor::new);
+	}
+
+	/**
+	 * Get the accessor of a declared field of the class.
+	 *
+	 * @return The accessor, or null if the class declares no field of that name
+	 */
+	public static FieldAccessor of(Class<?> type, String name) {
+		Field field = Reflects.getField(type, name);
+		return field == null ? null : of(field);
+	}
+
+	Object base(Object object) {
+		return isStatic ? base : requireNonNullInstance(declaringClass, object);
+	}
+
+	void check(Class<?> expected, String method) {
+		if (type != expected) throw new IllegalArgumentException("Method '" + method + "' does not support field other than " + expected.getName() + " types");
+	}
+
+	/** @throws IllegalArgumentException If the field type is a primitive type. */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T getObject(Object object) {
+		if (type.isPrimitive()) throw new IllegalArgumentException("Method 'getObject' does not support field of primitive types");
+
+		Object o = base(object);
+		return (T) (isVolatile ? unsafe.getReferenceVolatile(o, offset) : unsafe.getReference(o, offset));
+	}
+
+	@Override
+	public boolean getBool(Object object) {
+		check(boolean.class, "getBool");
+
+		Object o = base(object);
+		return isVolatile ? unsafe.getBooleanVolatile(o, offset) : unsafe.getBoolean(o, offset);
+	}
+
+	@Override
+	public byte getByte(Object object) {
+		check(byte.class, "getByte");
+
+		Object o = base(object);
+		return isVolatile ? unsafe.getByteVolatile(o, offset) : unsafe.getByte(o, offset);
+	}
+
+	@Override
+	public short getShort(Object object) {
+		check(short.class, "getShort");
+
+		Object o = base(object);
+		return isVolatile ? unsafe.getShortVolatile(o, offset) : unsafe.getShort(o, offset);
+	}
+
+	@Override
+	public int getInt(Object object) {
+		check(int.class, "getInt");
+
+		Object o = base(object);
+		return isVolatile ? unsafe.getIntVolatile(o, offset) : unsafe.getInt(o, offset);
+	}
+
+	@Override
+	public long getLong(Object object) {
+		check(long.class, "getLong");
+
+		Object o = base(object);
+		return isVolatile ? unsafe.getLongVolatile(o, offset) : unsafe.getLong(o, offset);
+	}
+
+	@Override
+	public float getFloat(Object object) {
+		check(float.class, "getFloat");
+
+		Object o = base(object);
+		return isVolatile ? unsafe.getFloatVolatile(o, offset) : unsafe.getFloat(o, offset);
+	}
+
+	@Override
+	public double getDouble(Object object) {
+		check(double.class, "getDouble");
+
+		Object o = base(object);
+		return isVolatile ? unsafe.getDoubleVolatile(o, offset) : unsafe.getDouble(o, offset);
+	}
+
+	@Override
+	public char getChar(Object object) {
+		check(char.class, "getChar");
+
+		Object o = base(object);
+		return isVolatile ? unsafe.getCharVolatile(o, offset) : unsafe.getChar(o, offset);
+	}
+
+	/** Get the value of the field of any type, primitive values are boxed. */
+	@Override
+	public Object get(Object object) {
+		Object o = base(object);
+
+		if (!type.isPrimitive()) return isVolatile ? unsafe.getReferenceVolatile(o, offset) : unsafe.getReference(o, offset);
+
+		if (isVolatile) {
+			if (type == int.class) return unsafe.getIntVolatile(o, offset);
+			else if (type == float.class) return unsafe.getFloatVolatile(o, offset);
+			else if (type == boolean.class) return unsafe.getBooleanVolatile(o, offset);
+			else if (type == byte.class) return unsafe.getByteVolatile(o, offset);
+			else if (type == long.class) return unsafe.getLongVolatile(o, offset);
+			else if (type == double.class) return unsafe.getDoubleVolatile(o, offset);
+			else if (type == char.class) return unsafe.getCharVolatile(o, offset);
+			else if (type == short.class) return unsafe.getShortVolatile(o, offset);
+		} else {
+			if (type == int.class) return unsafe.getInt(o, offset);
+			else if (type == float.class) return unsafe.getFloat(o, offset);
+			else if (type == boolean.class) return unsafe.getBoolean(o, offset);
+			else if (type == byte.class) return unsafe.getByte(o, offset);
+			else if (type == long.class) return unsafe.getLong(o, offset);
+			else if (type == double.class) return unsafe.getDouble(o, offset);
+			else if (type == char.class) return unsafe.getChar(o, offset);
+			else if (type == short.class) return unsafe.getShort(o, offset);
+		}
+		throw new IllegalArgumentException("unknown type of field " + field);
+	}
+
+	/** @throws IllegalArgumentException If the field type is a primitive type or the value cannot be cast to it. */
+	@Override
+	public void setObject(Object object, Object value) {
+		if (type.isPrimitive()) throw new IllegalArgumentException("Method 'setObject' does not support field of primitive types");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putReferenceVolatile(o, offset, requireAssignableFrom(type, value));
+		} else {
+			unsafe.putReference(o, offset, requireAssignableFrom(type, value));
+		}
+	}
+
+	@Override
+	public void setBool(Object object, boolean value) {
+		check(boolean.class, "setBool");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putBooleanVolatile(o, offset, value);
+		} else {
+			unsafe.putBoolean(o, offset, value);
+		}
+	}
+
+	@Override
+	public void setByte(Object object, byte value) {
+		check(byte.class, "setByte");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putByteVolatile(o, offset, value);
+		} else {
+			unsafe.putByte(o, offset, value);
+		}
+	}
+
+	@Override
+	public void setShort(Object object, short value) {
+		check(short.class, "setShort");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putShortVolatile(o, offset, value);
+		} else {
+			unsafe.putShort(o, offset, value);
+		}
+	}
+
+	@Override
+	public void setInt(Object object, int value) {
+		check(int.class, "setInt");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putIntVolatile(o, offset, value);
+		} else {
+			unsafe.putInt(o, offset, value);
+		}
+	}
+
+	@Override
+	public void setLong(Object object, long value) {
+		check(long.class, "setLong");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putLongVolatile(o, offset, value);
+		} else {
+			unsafe.putLong(o, offset, value);
+		}
+	}
+
+	@Override
+	public void setFloat(Object object, float value) {
+		check(float.class, "setFloat");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putFloatVolatile(o, offset, value);
+		} else {
+			unsafe.putFloat(o, offset, value);
+		}
+	}
+
+	@Override
+	public void setDouble(Object object, double value) {
+		check(double.class, "setDouble");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putDoubleVolatile(o, offset, value);
+		} else {
+			unsafe.putDouble(o, offset, value);
+		}
+	}
+
+	@Override
+	public void setChar(Object object, char value) {
+		check(char.class, "setChar");
+
+		Object o = base(object);
+		if (isVolatile) {
+			unsafe.putCharVolatile(o, offset, value);
+		} else {
+			unsafe.putChar(o, offset, value);
+		}
+	}
+
+	/** Set the value of the field of any type, primitive values must be passed boxed. */
+	@Override
+	public void set(Object object, Object value) {
+		Object o = base(object);
+
+		if (!type.isPrimitive()) {
+			if (isVolatile) {
+				unsafe.putReferenceVolatile(o, offset, requireAssignableFrom(type, value));
+			} else {
+				unsafe.putReference(o, offset, requireAssignableFrom(type, value));
+			}
+			return;
+		}
+
+		if (isVolatile) {
+			if (type == int.class) unsafe.putIntVolatile(o, offset, (int) value);
+			else if (type == float.class) unsafe.putFloatVolatile(o, offset, (float) value);
+			else if (type == boolean.class) unsafe.putBooleanVolatile(o, offset, (boolean) value);
+			else if (type == byte.class) unsafe.putByteVolatile(o, offset, (byte) value);
+			else if (type == long.class) unsafe.putLongVolatile(o, offset, (long) value);
+			else if (type == double.class) unsafe.putDoubleVolatile(o, offset, (double) value);
+			else if (type == char.class) unsafe.putCharVolatile(o, offset, (char) value);
+			else if (type == short.class) unsafe.putShortVolatile(o, offset, (short) value);
+			else throw new IllegalArgumentException("unknown type of field " + field);
+		} else {
+			if (type == int.class) unsafe.putInt(o, offset, (int) value);
+			else if (type == float.class) unsafe.putFloat(o, offset, (float) value);
+			else if (type == boolean.class) unsafe.putBoolean(o, offset, (boolean) value);
+			else if (type == byte.class) unsafe.putByte(o, offset, (byte) value);
+			else if (type == long.class) unsafe.putLong(o, offset, (long) value);
+			else if (type == double.class) unsafe.putDouble(o, offset, (double) value);
+			else if (type == char.class) unsafe.putChar(o, offset, (char) value);
+			else if (type == short.class) unsafe.putShort(o, offset, (short) value);
+			else throw new IllegalArgumentException("unknown type of field " + field);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "FieldAccessor[" + field + "]";
+	}
+}
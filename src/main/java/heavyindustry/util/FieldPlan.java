@@ -0,0 +1,226 @@
+package heavyindustry.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The instance fields of a class resolved once into typed accessors, for utilities that walk all fields of an object such as
+ * {@link Structs#toString(Object, boolean)}. Primitive fields are read through the typed methods of {@link FieldAccess}, so
+ * walking an object does not box its primitive values. The accessors are created on the first use of each field, so a field
+ * that can not be accessed only fails when it is read.
+ * <p>Plans are cached per class in a {@link ClassValue}, one for the declared fields only and one including the fields of
+ * all super classes, in the order of {@link Structs#toString(Object, boolean)}: the fields of the class first, then those of
+ * its super classes.
+ *
+ * @since 1.0.8
+ */
+public final class FieldPlan {
+	static final int OBJECT = 0, BOOL = 1, BYTE = 2, SHORT = 3, INT = 4, LONG = 5, FLOAT = 6, DOUBLE = 7, CHAR = 8;
+
+	static final ClassValue<FieldPlan> declared = new ClassValue<>() {
+		@Override
+		protected FieldPlan computeValue(Class<?> type) {
+			return new FieldPlan(type, false);
+		}
+	};
+	static final ClassValue<FieldPlan> hierarchy = new ClassValue<>() {
+		@Override
+		protected FieldPlan computeValue(Class<?> type) {
+			return new FieldPlan(type, true);
+		}
+	};
+
+	public final Class<?> type;
+	public final String simpleName;
+
+	final Field[] fields;
+	/** The accessors of the fields, null until first used. */
+	final FieldAccess[] accessors;
+	final int[] kinds;
+
+	FieldPlan(Class<?> type, boolean supers) {
+		this.type = type;
+		simpleName = type.getSimpleName();
+
+		ArrayList<Field> list = new ArrayList<>();
+		for (Class<?> c = type; c != null; c = supers ? c.getSuperclass() : null) {
+			for (Field field : Reflects.getFields(c)) {
+				if (!Modifier.isStatic(field.getModifiers())) list.add(field);
+			}
+		}
+
+		fields = list.toArray(new Field[0]);
+		accessors = new FieldAccess[fields.length];
+		kinds = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			kinds[i] = kindOf(fields[i].getType());
+		}
+	}
+
+	/**
+	 * Get the cached plan of a class.
+	 *
+	 * @param supers Whether the fields of the super classes are included
+	 */
+	public static FieldPlan of(Class<?> type, boolean supers) {
+		return (supers ? hierarchy : declared).get(type);
+	}
+
+	static int kindOf(Class<?> type) {
+		if (!type.isPrimitive()) return OBJECT;
+		else if (type == boolean.class) return BOOL;
+		else if (type == byte.class) return BYTE;
+		else if (type == short.class) return SHORT;
+		else if (type == int.class) return INT;
+		else if (type == long.class) return LONG;
+		else if (type == float.class) return FLOAT;
+		else if (type == double.class) return DOUBLE;
+		else return CHAR;
+	}
+
+	/** Get the accessor of a field, creating it on first use. Accessors are cached, so a race only creates it twice. */
+	FieldAccess accessor(int index) {
+		FieldAccess access = accessors[index];
+		if (access == null) accessors[index] = access = Unsafes.accessor(fields[index]);
+		return access;
+	}
+
+	public int size() {
+		return fields.length;
+	}
+
+	/** @return A copy of the fields of the plan, in plan order. */
+	public Field[] fields() {
+		return fields.clone();
+	}
+
+	/**
+	 * Append the fields of the object in the format of {@link Structs#toString(Object, boolean)}, without the class name and
+	 * the brackets. A field that can not be read is written as {@code ???}.
+	 */
+	public void appendFields(StringBuilder builder, Object object) {
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) builder.append(", ");
+			builder.append(fields[i].getName()).append('=');
+
+			try {
+				FieldAccess access = accessor(i);
+				switch (kinds[i]) {
+					case BOOL -> builder.append(access.getBool(object));
+					case BYTE -> builder.append(access.getByte(object));
+					case SHORT -> builder.append(access.getShort(object));
+					case INT -> builder.append(access.getInt(object));
+					case LONG -> builder.append(access.getLong(object));
+					case FLOAT -> builder.append(access.getFloat(object));
+					case DOUBLE -> builder.append(access.getDouble(object));
+					case CHAR -> builder.append(access.getChar(object));
+					default -> appendValue(builder, access.getObject(object));
+				}
+			} catch (Exception e) {
+				builder.append("???");
+			}
+		}
+	}
+
+	static void appendValue(StringBuilder builder, Object value) {
+		switch (value) {
+			case null -> builder.append("null");
+			case float[] array -> Structs.append(builder, array);
+			case int[] array -> Structs.append(builder, array);
+			case boolean[] array -> Structs.append(builder, array);
+			case byte[] array -> Structs.append(builder, array);
+			case char[] array -> Structs.append(builder, array);
+			case double[] array -> Structs.append(builder, array);
+			case long[] array -> Structs.append(builder, array);
+			case short[] array -> Structs.append(builder, array);
+			case Object[] array -> Structs.append(builder, array);
+			default -> builder.append(value);
+		}
+	}
+
+	/**
+	 * Compare the fields of two objects of the class of this plan. Floating point values are compared by their bits like
+	 * {@link Float#equals(Object)}, references with {@link Objects#deepEquals(Object, Object)}.
+	 */
+	public boolean equals(Object a, Object b) {
+		for (int i = 0; i < fields.length; i++) {
+			FieldAccess access = accessor(i);
+			boolean same = switch (kinds[i]) {
+				case BOOL -> access.getBool(a) == access.getBool(b);
+				case BYTE -> access.getByte(a) == access.getByte(b);
+				case SHORT -> access.getShort(a) == access.getShort(b);
+				case INT -> access.getInt(a) == access.getInt(b);
+				case LONG -> access.getLong(a) == access.getLong(b);
+				case FLOAT -> Float.floatToIntBits(access.getFloat(a)) == Float.floatToIntBits(access.getFloat(b));
+				case DOUBLE -> Double.doubleToLongBits(access.getDouble(a)) == Double.doubleToLongBits(access.getDouble(b));
+				case CHAR -> access.getChar(a) == access.getChar(b);
+				default -> Objects.deepEquals(access.getObject(a), access.getObject(b));
+			};
+			if (!same) return false;
+		}
+		return true;
+	}
+
+	/** @return A hash code of the fields of the object, consistent with {@link #equals(Object, Object)}. */
+	public int hashCode(Object object) {
+		int hash = 1;
+		for (int i = 0; i < fields.length; i++) {
+			FieldAccess access = accessor(i);
+			hash = 31 * hash + switch (kinds[i]) {
+				case BOOL -> Boolean.hashCode(access.getBool(object));
+				case BYTE -> access.getByte(object);
+				case SHORT -> access.getShort(object);
+				case INT -> access.getInt(object);
+				case LONG -> Long.hashCode(access.getLong(object));
+				case FLOAT -> Float.hashCode(access.getFloat(object));
+				case DOUBLE -> Double.hashCode(access.getDouble(object));
+				case CHAR -> access.getChar(object);
+				default -> deepHashCode(access.getObject(object));
+			};
+		}
+		return hash;
+	}
+
+	static int deepHashCode(Object value) {
+		return switch (value) {
+			case null -> 0;
+			case Object[] array -> Arrays.deepHashCode(array);
+			case float[] array -> Arrays.hashCode(array);
+			case int[] array -> Arrays.hashCode(array);
+			case boolean[] array -> Arrays.hashCode(array);
+			case byte[] array -> Arrays.hashCode(array);
+			case char[] array -> Arrays.hashCode(array);
+			case double[] array -> Arrays.hashCode(array);
+			case long[] array -> Arrays.hashCode(array);
+			case short[] array -> Arrays.hashCode(array);
+			default -> value.hashCode();
+		};
+	}
+
+	/**
+	 * Copy the value of every field from one object to another, shallowly. Final fields are copied as well if their accessor
+	 * can write them, which {@code Unsafe} always can. A {@link VarHandleAccessor} can only write a final field when
+	 * {@link Reflects#init()} has been called, and never for records and hidden classes.
+	 *
+	 * @throws UnsupportedOperationException If a final field can not be written, the fields before it are already copied.
+	 */
+	public void copy(Object from, Object to) {
+		for (int i = 0; i < fields.length; i++) {
+			FieldAccess access = accessor(i);
+			switch (kinds[i]) {
+				case BOOL -> access.setBool(to, access.getBool(from));
+				case BYTE -> access.setByte(to, access.getByte(from));
+				case SHORT -> access.setShort(to, access.getShort(from));
+				case INT -> access.setInt(to, access.getInt(from));
+				case LONG -> access.setLong(to, access.getLong(from));
+				case FLOAT -> access.setFloat(to, access.getFloat(from));
+				case DOUBLE -> access.setDouble(to, access.getDouble(from));
+				case CHAR -> access.setChar(to, access.getChar(from));
+				default -> access.setObject(to, access.getObject(from));
+			}
+		}
+	}
+}
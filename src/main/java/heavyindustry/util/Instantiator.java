@@ -0,0 +1,132 @@
+package heavyindustry.util;
+
+import jdk.internal.misc.Unsafe;
+import sun.reflect.ReflectionFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Creates instances of classes through a {@link Supplier} resolved once per class and strategy, so that deserialization or
+ * the refill of an object pool does not pay for {@link Constructor#newInstance(Object...)} on every object.
+ * <ul><li>{@link Strategy#CONSTRUCTOR} calls the declared no-arg constructor of the class, of any access, bound with
+ * {@link Reflects#bind(Constructor, Class)} so that {@code get()} is a plain {@code new}.
+ * <li>{@link Strategy#SERIALIZATION} creates objects like deserialization does, through a constructor made by
+ * {@link ReflectionFactory}: it only runs the no-arg constructor of the first class of the hierarchy, starting with the class
+ * itself, that is not {@link java.io.Serializable}. For a class that is not serializable this is its own no-arg constructor.
+ * If that class has no no-arg constructor, only the constructor of {@link Object} runs.
+ * <li>{@link Strategy#ALLOCATE} runs no constructor at all, every field keeps its default value. It uses
+ * {@code Unsafe.allocateInstance}, or the serialization constructor of {@link Object} if {@code Unsafe} is not
+ * {@link Unsafes#available}.</ul>
+ * <p>The constructors made by {@link ReflectionFactory} can not be turned into method handles, which would run the own
+ * constructor of the class instead. {@link Strategy#SERIALIZATION} and the fallback of {@link Strategy#ALLOCATE} therefore
+ * still call {@link Constructor#newInstance(Object...)} on every object, only the lookup is resolved once.
+ *
+ * @since 1.0.8
+ */
+public final class Instantiator {
+	static final Unsafe unsafe = Unsafes.unsafe;
+
+	static final ClassValue<ConcurrentHashMap<Strategy, Supplier<?>>> suppliers = new ClassValue<>() {
+		@Override
+		protected ConcurrentHashMap<Strategy, Supplier<?>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private Instantiator() {}
+
+	/** Get the supplier of the class for the first strategy that fits it, {@link Strategy#CONSTRUCTOR} or {@link Strategy#ALLOCATE}. */
+	public static <T> Supplier<T> of(Class<T> type) {
+		return of(type, Reflects.getConstructor(type) != null ? Strategy.CONSTRUCTOR : Strategy.ALLOCATE);
+	}
+
+	/**
+	 * Get the cached supplier of the class for a strategy, creating it on first use.
+	 *
+	 * @throws IllegalArgumentException If the class can not be instantiated, or has no no-arg constructor for
+	 *                                  {@link Strategy#CONSTRUCTOR}.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Supplier<T> of(Class<T> type, Strategy strategy) {
+		if (type.isInterface() || type.isArray() || type.isPrimitive() || Modifier.isAbstract(type.getModifiers()))
+			throw new IllegalArgumentException(type.getName() + " can not be instantiated");
+
+		return (Supplier<T>) suppliers.get(type).computeIfAbsent(strategy, k -> create(type, k));
+	}
+
+	/** Create a new instance of the class with the strategy of {@link #of(Class)}. */
+	public static <T> T newInstance(Class<T> type) {
+		return of(type).get();
+	}
+
+	static Supplier<?> create(Class<?> type, Strategy strategy) {
+		switch (strategy) {
+			case CONSTRUCTOR -> {
+				Constructor<?> constructor = Reflects.getConstructor(type);
+				if (constructor == null) throw new IllegalArgumentException(type.getName() + " has no no-arg constructor");
+
+				return Reflects.bind(constructor, Supplier.class);
+			}
+			case SERIALIZATION -> {
+				ReflectionFactory factory = factory();
+				Constructor<?> constructor = factory.newConstructorForSerialization(type);
+				return new ConstructorSupplier(constructor != null ? constructor : objectConstructor(type));
+			}
+			default -> {
+				if (!Unsafes.available) return new ConstructorSupplier(objectConstructor(type));
+
+				return () -> {
+					try {
+						return unsafe.allocateInstance(type);
+					} catch (InstantiationException e) {
+						throw new RuntimeException(e);
+					}
+				};
+			}
+		}
+	}
+
+	static ReflectionFactory factory() {
+		return Reflects.factory != null ? Reflects.factory : ReflectionFactory.getReflectionFactory();
+	}
+
+	/** @return A constructor of the class that only runs the constructor of {@link Object} */
+	static Constructor<?> objectConstructor(Class<?> type) {
+		try {
+			return factory().newConstructorForSerialization(type, Object.class.getDeclaredConstructor());
+		} catch (NoSuchMethodException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public enum Strategy {
+		CONSTRUCTOR, SERIALIZATION, ALLOCATE
+	}
+
+	/** Calls a constructor made by {@link ReflectionFactory}, which can not be bound because it is not a real constructor. */
+	static final class ConstructorSupplier implements Supplier<Object> {
+		final Constructor<?> constructor;
+
+		ConstructorSupplier(Constructor<?> constructor) {
+			constructor.setAccessible(true);
+			this.constructor = constructor;
+		}
+
+		@Override
+		public Object get() {
+			try {
+				return constructor.newInstance();
+			} catch (InvocationTargetException e) {
+				if (e.getCause() instanceof RuntimeException ex) throw ex;
+				if (e.getCause() instanceof Error er) throw er;
+				throw new RuntimeException(e.getCause());
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package heavyindustry.util;
+
+import com.mojang.logging.LogUtils;
+import jdk.internal.misc.Unsafe;
+import org.slf4j.Logger;
+
+import java.lang.ref.Cleaner;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A group of off-heap memory blocks that are freed together. Every block allocated from the arena is tracked, so
+ * {@link #close()} frees all of them at once and {@link #free(long)} rejects addresses the arena does not own.
+ * <p>An arena that becomes unreachable without being closed is a leak: its blocks are freed by a {@link Cleaner}, counted in
+ * {@link #leakedBytes()} and reported as a warning. Setting the system property {@code heavyindustry.arenaTrace} to true
+ * records where each arena was created, to be included in the warning. {@link #report()} lists the arenas that are still open.
+ * <p>Arenas are thread safe. They require {@code Unsafe} to be {@link Unsafes#available}.
+ *
+ * @since 1.0.8
+ */
+public final class MemoryArena implements AutoCloseable {
+	static final Unsafe unsafe = Unsafes.unsafe;
+	static final Cleaner cleaner = Cleaner.create();
+	private static final Logger LOGGER = LogUtils.getLogger();
+	static final boolean trace = Boolean.getBoolean("heavyindustry.arenaTrace");
+
+	static final Set<State> open = ConcurrentHashMap.newKeySet();
+	static final AtomicLong leakedArenas = new AtomicLong(), leakedBytes = new AtomicLong();
+
+	public final String name;
+
+	final State state;
+	final Cleaner.Cleanable cleanable;
+
+	/** @throws UnsupportedOperationException If {@code Unsafe} is not {@link Unsafes#available}. */
+	public MemoryArena(String name) {
+		Unsafes.requireAvailable();
+
+		this.name = name;
+		state = new State(name, trace ? new Throwable("Arena '" + name + "' created here") : null);
+		open.add(state);
+		cleanable = cleaner.register(this, state);
+	}
+
+	/**
+	 * Allocate a block whose content is undefined, aligned to at least 8 bytes.
+	 *
+	 * @return The address of the block
+	 * @throws IllegalArgumentException If the size is not positive, {@code Unsafe} gives no block for a size of zero.
+	 * @throws IllegalStateException If the arena is closed.
+	 */
+	public long allocate(long bytes) {
+		if (bytes <= 0l) throw new IllegalArgumentException("size must be positive: " + bytes);
+
+		synchronized (state) {
+			state.ensureOpen();
+
+			long address = unsafe.allocateMemory(bytes);
+			state.blocks.put(address, bytes);
+			state.bytes += bytes;
+			return address;
+		}
+	}
+
+	/** Allocate a block filled with zeros. */
+	public long allocateZeroed(long bytes) {
+		long address = allocate(bytes);
+		unsafe.setMemory(address, bytes, (byte) 0);
+		return address;
+	}
+
+	/**
+	 * Resize a block of this arena, keeping its content up to the smaller size.
+	 *
+	 * @return The new address of the block, the old one is no longer valid
+	 * @throws IllegalArgumentException If the arena does not own the address or the size is not positive.
+	 */
+	public long reallocate(long address, long bytes) {
+		if (bytes <= 0l) throw new IllegalArgumentException("size must be positive: " + bytes);
+
+		synchronized (state) {
+			state.ensureOpen();
+
+			Long size = state.blocks.remove(address);
+			if (size == null) throw new IllegalArgumentException("Address 0x" + Long.toHexString(address) + " is not owned by arena '" + name + "'");
+
+			long result = unsafe.reallocateMemory(address, bytes);
+			state.blocks.put(result, bytes);
+			state.bytes += bytes - size;
+			return result;
+		}
+	}
+
+	/**
+	 * Free one block of this arena.
+	 *
+	 * @throws IllegalArgumentException If the arena does not own the address, which includes blocks already freed.
+	 */
+	public void free(long address) {
+		synchronized (state) {
+			state.ensureOpen();
+
+			Long size = state.blocks.remove(address);
+			if (size == null) throw new IllegalArgumentException("Address 0x" + Long.toHexString(address) + " is not owned by arena '" + name + "'");
+
+			unsafe.freeMemory(address);
+			state.bytes -= size;
+		}
+	}
+
+	/** Free all blocks of this arena, which stays open for new allocations. */
+	public void freeAll() {
+		synchronized (state) {
+			state.ensureOpen();
+			state.freeAll();
+		}
+	}
+
+	public boolean owns(long address) {
+		synchronized (state) {
+			return state.blocks.containsKey(address);
+		}
+	}
+
+	/** @return The number of bytes currently allocated from this arena */
+	public long allocated() {
+		synchronized (state) {
+			return state.bytes;
+		}
+	}
+
+	/** @return The number of blocks currently allocated from this arena */
+	public int blocks() {
+		synchronized (state) {
+			return state.blocks.size();
+		}
+	}
+
+	public boolean isClosed() {
+		synchronized (state) {
+			return state.closed;
+		}
+	}
+
+	/** Free all blocks and close the arena. Closing an arena twice does nothing. */
+	@Override
+	public void close() {
+		synchronized (state) {
+			if (state.closed) return;
+
+			state.freeAll();
+			state.closed = true;
+		}
+		open.remove(state);
+		cleanable.clean();
+	}
+
+	/** @return The number of arenas that were freed by the cleaner instead of being closed */
+	public static long leakedArenas() {
+		return leakedArenas.get();
+	}
+
+	/** @return The number of bytes freed by the cleaner from arenas that were not closed */
+	public static long leakedBytes() {
+		return leakedBytes.get();
+	}
+
+	/** @return A listing of the open arenas with their allocations, followed by the leak counts */
+	public static String report() {
+		StringBuilder builder = new StringBuilder();
+		long total = 0l;
+		for (State state : open) {
+			synchronized (state) {
+				builder.append("  ").append(state.name).append(": ").append(state.bytes).append(" bytes in ").append(state.blocks.size()).append(" blocks\n");
+				total += state.bytes;
+			}
+		}
+
+		return "Open arenas: " + open.size() + ", " + total + " bytes\n" + builder + "Leaked arenas: " + leakedArenas.get() + ", " + leakedBytes.get() + " bytes";
+	}
+
+	@Override
+	public String toString() {
+		return "MemoryArena[" + name + "]";
+	}
+
+	/** The blocks of an arena, kept apart from it so that the cleaner can free them once the arena is unreachable. */
+	static final class State implements Runnable {
+		final String name;
+		final Throwable site;
+		final HashMap<Long, Long> blocks = new HashMap<>();
+
+		long bytes;
+		boolean closed;
+
+		State(String name, Throwable site) {
+			this.name = name;
+			this.site = site;
+		}
+
+		void ensureOpen() {
+			if (closed) throw new IllegalStateException("Arena '" + name + "' is closed");
+		}
+
+		void freeAll() {
+			for (long address : blocks.keySet()) {
+				unsafe.freeMemory(address);
+			}
+			blocks.clear();
+			bytes = 0l;
+		}
+
+		@Override
+		public void run() {
+			long leaked;
+			int count;
+			synchronized (this) {
+				if (closed) return;
+
+				leaked = bytes;
+				count = blocks.size();
+				freeAll();
+				closed = true;
+			}
+			open.remove(this);
+
+			if (count == 0) return;
+
+			leakedArenas.incrementAndGet();
+			leakedBytes.addAndGet(leaked);
+			LOGGER.warn("Arena '{}' was not closed, freed {} bytes in {} blocks", name, leaked, count, site);
+		}
+	}
+}
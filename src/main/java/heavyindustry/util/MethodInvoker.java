@@ -0,0 +1,54 @@
+package heavyindustry.util;
+
+/**
+ * Invokes one method with the arguments passed in an array, primitive arguments boxed. The typed variants return a primitive
+ * result without boxing, only the one matching the return type of the method is supported and the others throw
+ * {@link IllegalArgumentException}. {@link #invoke(Object, Object...)} works for every return type.
+ * <p>If the method is {@code static}, the target is ignored and can be {@code null}.
+ * <p>Every call still allocates the argument array and boxes the primitive arguments, only the result can avoid boxing. For
+ * calls without any allocation, bind the method to a functional interface of its exact shape with
+ * {@link Reflects#bind(java.lang.reflect.Method, Class)} instead.
+ *
+ * @see AccessorGenerator#method(java.lang.reflect.Method)
+ * @since 1.0.8
+ */
+public interface MethodInvoker {
+	/** @return The result of the method, boxed if it is primitive, or null for {@code void} methods */
+	Object invoke(Object target, Object... args);
+
+	default void invokeVoid(Object target, Object... args) {
+		invoke(target, args);
+	}
+
+	default boolean invokeBool(Object target, Object... args) {
+		throw new IllegalArgumentException("Method 'invokeBool' does not support method other than boolean types");
+	}
+
+	default byte invokeByte(Object target, Object... args) {
+		throw new IllegalArgumentException("Method 'invokeByte' does not support method other than byte types");
+	}
+
+	default short invokeShort(Object target, Object... args) {
+		throw new IllegalArgumentException("Method 'invokeShort' does not support method other than short types");
+	}
+
+	default int invokeInt(Object target, Object... args) {
+		throw new IllegalArgumentException("Method 'invokeInt' does not support method other than int types");
+	}
+
+	default long invokeLong(Object target, Object... args) {
+		throw new IllegalArgumentException("Method 'invokeLong' does not support method other than long types");
+	}
+
+	default float invokeFloat(Object target, Object... args) {
+		throw new IllegalArgumentException("Method 'invokeFloat' does not support method other than float types");
+	}
+
+	default double invokeDouble(Object target, Object... args) {
+		throw new IllegalArgumentException("Method 'invokeDouble' does not support method other than double types");
+	}
+
+	default char invokeChar(Object target, Object... args) {
+		throw new IllegalArgumentException("Method 'invokeChar' does not support method other than char types");
+	}
+}
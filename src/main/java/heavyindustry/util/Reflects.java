@@ -2,14 +2,21 @@ package heavyindustry.util;
 
 import sun.reflect.ReflectionFactory;
 
+import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 public final class Reflects {
@@ -25,6 +32,27 @@ public final class Reflects {
 	static Lookup lookup;
 
 	static MethodHandle getDeclaredFields, getDeclaredMethods, getDeclaredConstructors;
+	/** The package-private {@code copy()} of the reflection objects, so that the cached members are never handed out. */
+	static MethodHandle copyField, copyMethod, copyConstructor;
+
+	/** The functional interfaces bound to the members of each class by {@link #bind(Method, Class)}. */
+	static final ClassValue<ConcurrentHashMap<Binding, Object>> bindings = new ClassValue<>() {
+		@Override
+		protected ConcurrentHashMap<Binding, Object> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/**
+	 * The declared members of each class, built once on first lookup. The entries are stored in the class itself, so the index
+	 * of a hidden or unloaded class is released together with the class.
+	 */
+	static final ClassValue<MemberIndex> members = new ClassValue<>() {
+		@Override
+		protected MemberIndex computeValue(Class<?> type) {
+			return new MemberIndex(type);
+		}
+	};
 
 	// The exceptions thrown during initialization are collectively handled in a try-catch block.
 	public static void init() throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
@@ -40,6 +68,10 @@ public final class Reflects {
 		getDeclaredFields = lookup.findVirtual(Class.class, "getDeclaredFields0", MethodType.methodType(Field[].class, boolean.class));
 		getDeclaredMethods = lookup.findVirtual(Class.class, "getDeclaredMethods0", MethodType.methodType(Method[].class, boolean.class));
 		getDeclaredConstructors = lookup.findVirtual(Class.class, "getDeclaredConstructors0", MethodType.methodType(Constructor[].class, boolean.class));
+
+		copyField = lookup.findVirtual(Field.class, "copy", MethodType.methodType(Field.class));
+		copyMethod = lookup.findVirtual(Method.class, "copy", MethodType.methodType(Method.class));
+		copyConstructor = lookup.findVirtual(Constructor.class, "copy", MethodType.methodType(Constructor.class));
 	}
 
 	/**
@@ -49,11 +81,7 @@ public final class Reflects {
 	 * @return The field, or {@code null} if not found.
 	 */
 	public static Field getField(Class<?> type, String name) {
-		Field[] fields = getFields(type);
-		for (Field field : fields) {
-			if (field.getName().equals(name)) return field;
-		}
-		return null;
+		return copy(index(type).fieldsByName.get(name));
 	}
 
 	/**
@@ -63,71 +91,131 @@ public final class Reflects {
 	 * @return The field, or {@code null} if not found.
 	 */
 	public static Field getField(Class<?> type, Predicate<Field> predicate) {
-		Field[] fields = getFields(type);
+		Field[] fields = index(type).fields;
 		for (Field field : fields) {
-			if (predicate.test(field)) return field;
+			if (predicate.test(field)) return copy(field);
 		}
 		return null;
 	}
 
 	public static Method getMethod(Class<?> type, String name, Class<?>... args) {
-		Method[] methods = getMethods(type);
-		for (Method method : methods) {
-			if (method.getName().equals(name) && Arrays.equals(method.getParameterTypes(), args)) return method;
+		MemberIndex index = index(type);
+		int[] candidates = index.methodsByName.get(name);
+		if (candidates == null) return null;
+
+		for (int i : candidates) {
+			if (Arrays.equals(index.methodParameters[i], args)) return copy(index.methods[i]);
 		}
 		return null;
 	}
 
 	public static Method getMethod(Class<?> type, Predicate<Method> predicate) {
-		Method[] methods = getMethods(type);
+		Method[] methods = index(type).methods;
 		for (Method method : methods) {
-			if (predicate.test(method)) return method;
+			if (predicate.test(method)) return copy(method);
 		}
 		return null;
 	}
 
 	public static Constructor<?> getConstructor(Class<?> type, Class<?>... args) {
-		Constructor<?>[] constructors = getConstructors(type);
-		for (Constructor<?> constructor : constructors) {
-			if (Arrays.equals(constructor.getParameterTypes(), args)) return constructor;
+		MemberIndex index = index(type);
+		for (int i = 0; i < index.constructors.length; i++) {
+			if (Arrays.equals(index.constructorParameters[i], args)) return copy(index.constructors[i]);
 		}
 		return null;
 	}
 
 	public static Constructor<?> getConstructor(Class<?> type, Predicate<Constructor<?>> predicate) {
-		Constructor<?>[] constructors = getConstructors(type);
+		Constructor<?>[] constructors = index(type).constructors;
 		for (Constructor<?> constructor : constructors) {
-			if (predicate.test(constructor)) return constructor;
+			if (predicate.test(constructor)) return copy(constructor);
 		}
 		return null;
 	}
 
 	/**
 	 * Unrestricted access to all defined fields of the class without throwing exceptions.
+	 * <p>The fields are copies, like those of {@link Class#getDeclaredFields()}, so making one accessible does not affect other
+	 * callers. The same holds for every member returned by this class.
 	 */
 	public static Field[] getFields(Class<?> type) {
-		try {
-			return (Field[]) getDeclaredFields.invokeExact(type, false);
-		} catch (Throwable e) {
-			return type.getDeclaredFields();
+		Field[] fields = index(type).fields.clone();
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = copy(fields[i]);
 		}
+		return fields;
 	}
 
 	/**
 	 * Unrestricted access to all methods defined by the class without throwing exceptions.
 	 */
 	public static Method[] getMethods(Class<?> type) {
-		try {
-			return (Method[]) getDeclaredMethods.invokeExact(type, false);
-		} catch (Throwable e) {
-			return type.getDeclaredMethods();
+		Method[] methods = index(type).methods.clone();
+		for (int i = 0; i < methods.length; i++) {
+			methods[i] = copy(methods[i]);
 		}
+		return methods;
 	}
 
 	/**
 	 * Unrestricted access to all Constructors defined by the class without throwing exceptions.
 	 */
 	public static Constructor<?>[] getConstructors(Class<?> type) {
+		Constructor<?>[] constructors = index(type).constructors.clone();
+		for (int i = 0; i < constructors.length; i++) {
+			constructors[i] = copy(constructors[i]);
+		}
+		return constructors;
+	}
+
+	/**
+	 * Copy a member of the index. Before {@link #init()} the index is built from the public reflection API on every lookup, so
+	 * its members are already fresh copies and are returned as they are.
+	 */
+	static Field copy(Field field) {
+		if (field == null || copyField == null) return field;
+		try {
+			return (Field) copyField.invokeExact(field);
+		} catch (Throwable e) {
+			return field;
+		}
+	}
+
+	static Method copy(Method method) {
+		if (method == null || copyMethod == null) return method;
+		try {
+			return (Method) copyMethod.invokeExact(method);
+		} catch (Throwable e) {
+			return method;
+		}
+	}
+
+	static Constructor<?> copy(Constructor<?> constructor) {
+		if (constructor == null || copyConstructor == null) return constructor;
+		try {
+			return (Constructor<?>) copyConstructor.invokeExact(constructor);
+		} catch (Throwable e) {
+			return constructor;
+		}
+	}
+
+	static Field[] declaredFields(Class<?> type) {
+		try {
+			return (Field[]) getDeclaredFields.invokeExact(type, false);
+		} catch (Throwable e) {
+			return type.getDeclaredFields();
+		}
+	}
+
+	static Method[] declaredMethods(Class<?> type) {
+		try {
+			return (Method[]) getDeclaredMethods.invokeExact(type, false);
+		} catch (Throwable e) {
+			return type.getDeclaredMethods();
+		}
+	}
+
+	static Constructor<?>[] declaredConstructors(Class<?> type) {
 		try {
 			return (Constructor<?>[]) getDeclaredConstructors.invokeExact(type, false);
 		} catch (Throwable e) {
@@ -135,7 +223,190 @@ public final class Reflects {
 		}
 	}
 
+	/**
+	 * Get the member index of a class. Before {@link #init()} only the filtered members are visible, so the index is not
+	 * cached then.
+	 */
+	static MemberIndex index(Class<?> type) {
+		return getDeclaredFields == null ? new MemberIndex(type) : members.get(type);
+	}
+
+	/** Drop the cached member index of a class, for example after it has been redefined. */
+	public static void clearMembers(Class<?> type) {
+		members.remove(type);
+	}
+
+	/**
+	 * Turn a method into an instance of a functional interface that calls it directly, like a method reference would. The
+	 * implementation is spun by {@link LambdaMetafactory} as a nestmate of the declaring class, so private methods can be bound
+	 * as well and calls through the interface run at the speed of a direct call once compiled.
+	 * <p>For an instance method the first parameter of the functional method is the receiver. The parameters and the result
+	 * are adapted as in a method reference: primitive values are boxed or unboxed and reference parameters may be narrowed to
+	 * the types of the method. The results are cached per method and interface.
+	 * <p>If the interface is not visible to the class loader of the declaring class, a slower
+	 * {@link MethodHandleProxies proxy} is returned instead.
+	 *
+	 * @param type The functional interface to implement
+	 * @throws IllegalArgumentException If {@code type} is not a functional interface or does not fit the method.
+	 */
+	public static <F> F bind(Method method, Class<F> type) {
+		return type.cast(bindings.get(method.getDeclaringClass()).computeIfAbsent(new Binding(method, type), Reflects::spin));
+	}
+
+	/**
+	 * Turn a constructor into an instance of a functional interface that creates new objects, like a constructor reference.
+	 *
+	 * @see #bind(Method, Class)
+	 */
+	public static <F> F bind(Constructor<?> constructor, Class<F> type) {
+		return type.cast(bindings.get(constructor.getDeclaringClass()).computeIfAbsent(new Binding(constructor, type), Reflects::spin));
+	}
+
+	/**
+	 * Bind a declared method of the class.
+	 *
+	 * @return The bound interface, or null if the class declares no such method
+	 * @see #bind(Method, Class)
+	 */
+	public static <F> F bind(Class<?> owner, String name, Class<F> type, Class<?>... args) {
+		Method method = getMethod(owner, name, args);
+		return method == null ? null : bind(method, type);
+	}
+
+	static Object spin(Binding binding) {
+		Method sam = functionalMethod(binding.type);
+		Class<?> owner = binding.member.getDeclaringClass();
+
+		MethodHandle handle;
+		Lookup caller;
+		try {
+			caller = lookup != null ? lookup.in(owner) : MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+			handle = binding.member instanceof Method method ? caller.unreflect(method) : caller.unreflectConstructor((Constructor<?>) binding.member);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(e);
+		}
+
+		MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+		try {
+			return LambdaMetafactory.metafactory(caller, sam.getName(), MethodType.methodType(binding.type), samType, handle, instantiate(samType, handle.type()))
+					.getTarget().invoke();
+		} catch (Throwable e) {
+			// The interface is not visible from the declaring class, or the types need conversions the factory does not do.
+			try {
+				return MethodHandleProxies.asInterfaceInstance(binding.type, handle);
+			} catch (RuntimeException ex) {
+				ex.addSuppressed(e);
+				throw new IllegalArgumentException(binding.member + " does not fit " + binding.type.getName(), ex);
+			}
+		}
+	}
+
+	/** Specialize the reference types of the functional method to the types of the implementation where they are narrower. */
+	static MethodType instantiate(MethodType sam, MethodType impl) {
+		if (sam.parameterCount() != impl.parameterCount()) throw new IllegalArgumentException("Expected " + impl.parameterCount() + " parameters: " + sam);
+
+		Class<?>[] parameters = new Class<?>[sam.parameterCount()];
+		for (int i = 0; i < parameters.length; i++) {
+			parameters[i] = specialize(sam.parameterType(i), impl.parameterType(i));
+		}
+		Class<?> returns = sam.returnType() == void.class ? void.class : specialize(sam.returnType(), impl.returnType());
+		return MethodType.methodType(returns, parameters);
+	}
+
+	static Class<?> specialize(Class<?> sam, Class<?> impl) {
+		if (sam.isPrimitive() || impl == void.class) return sam;
+
+		Class<?> boxed = impl.isPrimitive() ? MethodType.methodType(impl).wrap().returnType() : impl;
+		return sam.isAssignableFrom(boxed) ? boxed : sam;
+	}
+
+	/** @return The single abstract method of a functional interface. */
+	static Method functionalMethod(Class<?> type) {
+		if (!type.isInterface()) throw new IllegalArgumentException(type.getName() + " is not an interface");
+
+		Method found = null;
+		for (Method method : type.getMethods()) {
+			if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) continue;
+			if (found != null && !(found.getName().equals(method.getName()) && Arrays.equals(found.getParameterTypes(), method.getParameterTypes())))
+				throw new IllegalArgumentException(type.getName() + " has more than one abstract method");
+			found = method;
+		}
+		if (found == null) throw new IllegalArgumentException(type.getName() + " has no abstract method");
+		return found;
+	}
+
+	static boolean isObjectMethod(Method method) {
+		try {
+			Object.class.getMethod(method.getName(), method.getParameterTypes());
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
 	public static Lookup lookup() {
 		return lookup;
 	}
+
+	/** A member bound to a functional interface, the key of {@link #bindings}. */
+	static final class Binding {
+		final Executable member;
+		final Class<?> type;
+
+		Binding(Executable member, Class<?> type) {
+			this.member = member;
+			this.type = type;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Binding other && member.equals(other.member) && type == other.type;
+		}
+
+		@Override
+		public int hashCode() {
+			return member.hashCode() * 31 + type.hashCode();
+		}
+	}
+
+	/** The declared members of one class with lookup tables by name, immutable once built. */
+	static final class MemberIndex {
+		final Field[] fields;
+		final Method[] methods;
+		final Constructor<?>[] constructors;
+
+		final Class<?>[][] methodParameters, constructorParameters;
+
+		/** The first declared field of each name. */
+		final HashMap<String, Field> fieldsByName;
+		/** The positions in {@link #methods} of the overloads of each name. */
+		final HashMap<String, int[]> methodsByName;
+
+		MemberIndex(Class<?> type) {
+			fields = declaredFields(type);
+			methods = declaredMethods(type);
+			constructors = declaredConstructors(type);
+
+			fieldsByName = new HashMap<>(fields.length * 2);
+			for (Field field : fields) {
+				fieldsByName.putIfAbsent(field.getName(), field);
+			}
+
+			methodParameters = new Class<?>[methods.length][];
+			methodsByName = new HashMap<>(methods.length * 2);
+			for (int i = 0; i < methods.length; i++) {
+				methodParameters[i] = methods[i].getParameterTypes();
+
+				int[] old = methodsByName.get(methods[i].getName());
+				int[] positions = old == null ? new int[1] : Arrays.copyOf(old, old.length + 1);
+				positions[positions.length - 1] = i;
+				methodsByName.put(methods[i].getName(), positions);
+			}
+
+			constructorParameters = new Class<?>[constructors.length][];
+			for (int i = 0; i < constructors.length; i++) {
+				constructorParameters[i] = constructors[i].getParameterTypes();
+			}
+		}
+	}
 }
@@ -0,0 +1,167 @@
+package heavyindustry.util;
+
+import java.lang.reflect.Array;
+import java.util.Objects;
+
+/**
+ * A structure of arrays: the elements of a record-like interface stored as one primitive array per property instead of one
+ * object per element, so that there is no object header per element and a loop over one property is a sequential scan of a
+ * single array. The subclasses are generated by {@link StructLayout}, create them with {@link #create(Class, int)}.
+ * <p>The generated class implements the interface as a cursor: its getters and setters read and write the arrays at the
+ * current index, which {@link #at(int)} and {@link #add()} move. The cursor is a flyweight, it does not copy the element.
+ * <pre>{@code
+ * interface Machine {
+ *     float heat();
+ *     void heat(float heat);
+ * }
+ *
+ * StructArray<Machine> machines = StructArray.create(Machine.class, 1024);
+ * machines.add().heat(20f);
+ * float[] heat = machines.column("heat"); // scan all machines without going through the cursor
+ * }</pre>
+ * <p>The cursor accessors only check the index against the capacity. {@link #view()} gives a second cursor over the same
+ * arrays for nested loops. Structures of arrays are not thread safe.
+ *
+ * @param <T> The interface of the elements
+ * @since 1.0.8
+ */
+public abstract class StructArray<T> {
+	/** The index of the element the cursor points to, read by the generated accessors. */
+	protected int index;
+
+	StructLayout<T> layout;
+	int size, capacity;
+
+	protected StructArray() {}
+
+	/**
+	 * Create an empty structure of arrays for the interface, generating its class on first use.
+	 *
+	 * @throws UnsupportedOperationException If the dynamilizer library is missing.
+	 * @see StructLayout#of(Class)
+	 */
+	public static <T> StructArray<T> create(Class<T> type, int capacity) {
+		return StructLayout.of(type).create(capacity);
+	}
+
+	/** @return The arrays of the properties in the order of {@link StructLayout#names()}, generated */
+	protected abstract Object[] columns();
+
+	/** Replace the arrays of the properties, generated. */
+	protected abstract void columns(Object[] columns);
+
+	public StructLayout<T> layout() {
+		return layout;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** @return The cursor of this structure of arrays, moved to the element */
+	@SuppressWarnings("unchecked")
+	public T at(int index) {
+		this.index = Objects.checkIndex(index, size);
+		return (T) this;
+	}
+
+	/** @return The cursor, moved to a new element at the end whose properties are zero */
+	@SuppressWarnings("unchecked")
+	public T add() {
+		if (size == capacity) resize(Math.max(8, capacity + (capacity >> 1)));
+
+		index = size++;
+		return (T) this;
+	}
+
+	/** @return The index the cursor points to */
+	public int index() {
+		return index;
+	}
+
+	/**
+	 * Remove an element by moving the last element into its place, which keeps the arrays dense but changes the order. The
+	 * cursor is left at the removed index.
+	 */
+	public void removeSwap(int index) {
+		Objects.checkIndex(index, size);
+
+		int last = --size;
+		Object[] columns = columns();
+		for (int i = 0; i < columns.length; i++) {
+			System.arraycopy(columns[i], last, columns[i], index, 1);
+			System.arraycopy(layout.zeros[i], 0, columns[i], last, 1);
+		}
+		this.index = index;
+	}
+
+	/** Remove all elements, zeroing the used part of the arrays. */
+	public void clear() {
+		Object[] columns = columns();
+		for (int i = 0; i < columns.length; i++) {
+			for (int j = 0; j < size; j += StructLayout.ZEROS) {
+				System.arraycopy(layout.zeros[i], 0, columns[i], j, Math.min(StructLayout.ZEROS, size - j));
+			}
+		}
+		size = 0;
+		index = 0;
+	}
+
+	public void ensureCapacity(int capacity) {
+		if (capacity > this.capacity) resize(Math.max(capacity, this.capacity + (this.capacity >> 1)));
+	}
+
+	/** Change the capacity of the arrays, dropping the elements beyond it. This invalidates the views and the columns. */
+	public void resize(int capacity) {
+		if (capacity < 0) throw new IllegalArgumentException("negative capacity: " + capacity);
+
+		Object[] columns = columns();
+		for (int i = 0; i < columns.length; i++) {
+			Object column = Array.newInstance(layout.types[i], capacity);
+			System.arraycopy(columns[i], 0, column, 0, Math.min(size, capacity));
+			columns[i] = column;
+		}
+		columns(columns);
+
+		this.capacity = capacity;
+		size = Math.min(size, capacity);
+		index = Math.min(index, Math.max(0, size - 1));
+	}
+
+	/**
+	 * Get the array of a property for scanning it directly. Its length is the capacity, only the first {@link #size()} elements
+	 * are in use, and it is replaced when the capacity changes.
+	 *
+	 * @throws IllegalArgumentException If the interface has no property of that name.
+	 */
+	@SuppressWarnings("unchecked")
+	public <A> A column(String name) {
+		return (A) columns()[layout.indexOf(name)];
+	}
+
+	/**
+	 * @return A new cursor over the same arrays, with its own index. It keeps the size of this structure of arrays at the time
+	 * of the call, so it is only valid until elements are added or removed
+	 */
+	public StructArray<T> view() {
+		StructArray<T> view = layout.instantiate();
+		view.columns(columns());
+		view.size = size;
+		view.capacity = capacity;
+		view.index = index;
+		return view;
+	}
+
+	@Override
+	public String toString() {
+		return "StructArray[" + layout.type.getName() + ", size=" + size + ", capacity=" + capacity + "]";
+	}
+}
@@ -0,0 +1,161 @@
+package heavyindustry.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.TreeMap;
+
+/**
+ * The layout of a {@link StructArray} for a record-like interface, with the subclass generated for it.
+ * <p>The properties are read from the abstract methods of the interface: a getter {@code type name()} and optionally a setter
+ * {@code void name(type)}, where the type is primitive. Default and static methods are left alone, so the interface can
+ * declare helpers built on its properties. The properties are ordered by name. Their names can not be those of the methods of
+ * {@link StructArray} or {@link Object}, such as {@code size} or {@code index}, which the accessors would override.
+ * <p>The subclass is built with the class maker of the dynamilizer library by {@link Bytecodes}, with one array field per property, and defined
+ * as a hidden class in the package of the interface. Layouts are cached per interface.
+ *
+ * @param <T> The interface of the elements
+ * @since 1.0.8
+ */
+public final class StructLayout<T> {
+	/** The length of the zero arrays used to clear the columns. */
+	static final int ZEROS = 64;
+
+	/** The names of the methods of {@link StructArray} and its super classes, which can not be property names. */
+	static final HashSet<String> RESERVED = new HashSet<>();
+
+	static {
+		for (Class<?> c = StructArray.class; c != null; c = c.getSuperclass()) {
+			for (Method method : c.getDeclaredMethods()) {
+				RESERVED.add(method.getName());
+			}
+		}
+	}
+
+	static final ClassValue<StructLayout<?>> layouts = new ClassValue<>() {
+		@Override
+		protected StructLayout<?> computeValue(Class<?> type) {
+			return new StructLayout<>(type);
+		}
+	};
+
+	public final Class<T> type;
+
+	final String[] names;
+	final Class<?>[] types;
+	final Object[] zeros;
+	final MethodHandle constructor;
+
+	StructLayout(Class<T> type) {
+		if (!type.isInterface()) throw new IllegalArgumentException(type.getName() + " is not an interface");
+
+		if (!AccessorGenerator.classMaker) throw new UnsupportedOperationException("Structures of arrays require the dynamilizer library");
+
+		this.type = type;
+
+		TreeMap<String, Class<?>> properties = new TreeMap<>();
+		for (Method method : type.getMethods()) {
+			if (!Modifier.isAbstract(method.getModifiers()) || method.getParameterCount() != 0) continue;
+
+			if (RESERVED.contains(method.getName())) throw new IllegalArgumentException("Property '" + method.getName() + "' of " + type.getName() + " clashes with a method of StructArray");
+
+			Class<?> returns = method.getReturnType();
+			if (!returns.isPrimitive() || returns == void.class) throw new IllegalArgumentException("Property '" + method.getName() + "' of " + type.getName() + " is not of a primitive type");
+			properties.put(method.getName(), returns);
+		}
+		for (Method method : type.getMethods()) {
+			if (!Modifier.isAbstract(method.getModifiers()) || method.getParameterCount() == 0) continue;
+
+			if (method.getParameterCount() != 1 || method.getReturnType() != void.class || properties.get(method.getName()) != method.getParameterTypes()[0]) {
+				throw new IllegalArgumentException("Method '" + method + "' is neither a getter nor the setter of a property");
+			}
+		}
+
+		names = properties.keySet().toArray(new String[0]);
+		types = properties.values().toArray(new Class<?>[0]);
+		zeros = new Object[types.length];
+		for (int i = 0; i < types.length; i++) {
+			zeros[i] = Array.newInstance(types[i], ZEROS);
+		}
+
+		try {
+			Lookup lookup = define(type, Bytecodes.structArray(type, names, types));
+			constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).asType(MethodType.methodType(StructArray.class));
+		} catch (Throwable e) {
+			throw new IllegalStateException("Could not generate the structure of arrays of " + type.getName(), e);
+		}
+	}
+
+	/**
+	 * Get the cached layout of an interface, generating it on first use.
+	 *
+	 * @throws IllegalArgumentException If the type is not an interface or not record-like.
+	 * @throws IllegalStateException If the class could not be generated.
+	 * @throws UnsupportedOperationException If the dynamilizer library is missing.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> StructLayout<T> of(Class<T> type) {
+		return (StructLayout<T>) layouts.get(type);
+	}
+
+	/** Create an empty structure of arrays of this layout. */
+	public StructArray<T> create(int capacity) {
+		StructArray<T> array = instantiate();
+
+		Object[] columns = new Object[types.length];
+		for (int i = 0; i < types.length; i++) {
+			columns[i] = Array.newInstance(types[i], capacity);
+		}
+		array.columns(columns);
+		array.capacity = capacity;
+		return array;
+	}
+
+	@SuppressWarnings("unchecked")
+	StructArray<T> instantiate() {
+		try {
+			StructArray<T> array = (StructArray<T>) constructor.invokeExact();
+			array.layout = this;
+			return array;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** @return A copy of the names of the properties */
+	public String[] names() {
+		return names.clone();
+	}
+
+	/** @return A copy of the primitive types of the properties, in the order of {@link #names()} */
+	public Class<?>[] types() {
+		return types.clone();
+	}
+
+	/**
+	 * @return The position of the property in {@link #names()}
+	 * @throws IllegalArgumentException If there is no property of that name.
+	 */
+	public int indexOf(String name) {
+		int index = Arrays.binarySearch(names, name);
+		if (index < 0) throw new IllegalArgumentException("No property '" + name + "' in " + type.getName());
+		return index;
+	}
+
+	/** Define the class as a hidden class in the package of the interface. */
+	static Lookup define(Class<?> host, byte[] bytes) throws Throwable {
+		Lookup lookup = Reflects.lookup != null ? Reflects.lookup.in(host) : MethodHandles.privateLookupIn(host, MethodHandles.lookup());
+		return lookup.defineHiddenClass(bytes, true);
+	}
+
+	@Override
+	public String toString() {
+		return "StructLayout[" + type.getName() + ", " + String.join(", ", names) + "]";
+	}
+}
@@ -3,8 +3,6 @@ package heavyindustry.util;
 import net.minecraft.util.ToFloatFunction;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -49,60 +47,44 @@ public final class Structs {
 	public static String toString(Object object, boolean last) {
 		if (object == null) return "null";
 
-		Class<?> type = object.getClass();
+		FieldPlan plan = FieldPlan.of(object.getClass(), last);
 
 		StringBuilder builder = new StringBuilder();
-		builder.append(type.getSimpleName()).append('[');
-		int i = 0;
-		while (type != null) {
-			for (Field field : type.getDeclaredFields()) {
-				if (Modifier.isStatic(field.getModifiers())) {
-					continue;
-				}
+		builder.append(plan.simpleName).append('[');
+		plan.appendFields(builder, object);
+		return builder.append(']').toString();
+	}
 
-				if (i++ > 0) {
-					builder.append(", ");
-				}
+	/**
+	 * Compare all instance fields of two objects, including those of the super classes. The objects are equal if they are of
+	 * the same class and every field is equal, array fields are compared deeply.
+	 *
+	 * @see FieldPlan#equals(Object, Object)
+	 */
+	public static boolean fieldsEquals(Object a, Object b) {
+		if (a == b) return true;
+		if (a == null || b == null || a.getClass() != b.getClass()) return false;
 
-				builder.append(field.getName()).append('=');
-
-				try {
-					Object value = Unsafes.get(field, object);
-
-					if (value == null) {
-						builder.append("null");
-
-						continue;
-					}
-
-					Class<?> valueType = value.getClass();
-
-					if (valueType.isArray()) {
-						// I think using instanceof would be better.
-						switch (value) {
-							case float[] array -> append(builder, array);
-							case int[] array -> append(builder, array);
-							case boolean[] array -> append(builder, array);
-							case byte[] array -> append(builder, array);
-							case char[] array -> append(builder, array);
-							case double[] array -> append(builder, array);
-							case long[] array -> append(builder, array);
-							case short[] array -> append(builder, array);
-							case Object[] array -> append(builder, array);
-							default -> builder.append("???");// It shouldn't have happened...
-						}
-					} else {
-						builder.append(value);
-					}
-				} catch (Exception e) {
-					builder.append("???");
-				}
-			}
+		return FieldPlan.of(a.getClass(), true).equals(a, b);
+	}
 
-			type = last ? type.getSuperclass() : null;
-		}
+	/** @return A hash code of all instance fields of the object, consistent with {@link #fieldsEquals(Object, Object)}. */
+	public static int fieldsHashCode(Object object) {
+		return object == null ? 0 : FieldPlan.of(object.getClass(), true).hashCode(object);
+	}
 
-		return builder.append(']').toString();
+	/**
+	 * Copy all instance fields, including final ones and those of the super classes, from one object to another of the same
+	 * class. The copy is shallow.
+	 *
+	 * @return {@code to}
+	 * @throws IllegalArgumentException If the objects are not of the same class.
+	 */
+	public static <T> T copyFields(T from, T to) {
+		if (from.getClass() != to.getClass()) throw new IllegalArgumentException(to.getClass() + " is not the class of " + from.getClass());
+
+		FieldPlan.of(from.getClass(), true).copy(from, to);
+		return to;
 	}
 
 	/**
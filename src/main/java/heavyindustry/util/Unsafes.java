@@ -3,17 +3,53 @@ package heavyindustry.util;
 import jdk.internal.misc.Unsafe;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.security.ProtectionDomain;
-
-import static heavyindustry.util.Structs.requireAssignableFrom;
-import static heavyindustry.util.Structs.requireNonNullInstance;
+import java.util.Arrays;
+import java.util.Objects;
 
 public final class Unsafes {
-	static Unsafe unsafe = Unsafe.getUnsafe();
+	/**
+	 * Whether {@code jdk.internal.misc.Unsafe} is accessible, decided once when this class is initialized, which should happen
+	 * after {@link Demodulator#openModules()}. If it is not, the field operations of this class, {@link FieldAccessor} and the
+	 * atomic classes of this package fall back to {@link java.lang.invoke.VarHandle}s with the same semantics.
+	 * <p>The {@code VarHandle} backend can be forced by setting the system property {@code heavyindustry.varHandles} to true.
+	 */
+	public static final boolean available = checkAvailable();
+
+	/** The {@code Unsafe} instance, null if it is not {@link #available}. */
+	static final Unsafe unsafe = available ? Unsafe.getUnsafe() : null;
 
 	private Unsafes() {}
 
+	static boolean checkAvailable() {
+		if (Boolean.getBoolean("heavyindustry.varHandles")) return false;
+
+		try {
+			return Unsafe.getUnsafe() != null;
+		} catch (IllegalAccessError e) {
+			return false;
+		}
+	}
+
+	/** @return The name of the backend used for field and atomic operations, for logging. */
+	public static String backend() {
+		return available ? "Unsafe" : "VarHandle";
+	}
+
+	/**
+	 * Get the cached accessor of a field, which resolves the field once instead of on every call. This is a
+	 * {@link FieldAccessor} if {@code Unsafe} is {@link #available}, a {@link VarHandleAccessor} otherwise.
+	 */
+	public static FieldAccess accessor(Field field) {
+		return available ? FieldAccessor.of(field) : VarHandleAccessor.of(field);
+	}
+
+	/** @return The accessor of a declared field of the class, or null if there is no field of that name */
+	public static FieldAccess accessor(Class<?> type, String name) {
+		Field field = Reflects.getField(type, name);
+		return field == null ? null : accessor(field);
+	}
+
 	public static <T> T getObject(Class<?> type, String name, Object object) {
 		Field field = Reflects.getField(type, name);
 		return field == null ? null : getObject(field, object);
@@ -28,20 +64,8 @@ public final class Unsafes {
 	 *                                  <li>If the field is not {@code static} and the {@code object} is not an
 	 *                                                                   instance of {@code field.getDeclaringClass()} or {@code null}.</ul>
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T> T getObject(Field field, Object object) {
-		if (field.getType().isPrimitive()) throw new IllegalArgumentException("Method 'getObject' does not support field of primitive types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return (T) (Modifier.isVolatile(modifiers) ?
-				unsafe.getReferenceVolatile(o, offset) :
-				unsafe.getReference(o, offset));
+		return accessor(field).getObject(object);
 	}
 
 	public static boolean getBool(Class<?> type, String name, Object object) {
@@ -59,17 +83,7 @@ public final class Unsafes {
 	 *                                  instance of {@code field.getDeclaringClass()} or {@code null}.</ul>
 	 */
 	public static boolean getBool(Field field, Object object) {
-		if (field.getType() != boolean.class) throw new IllegalArgumentException("Method 'getBool' does not support field other than boolean types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return Modifier.isVolatile(modifiers) ?
-				unsafe.getBooleanVolatile(o, offset) :
-				unsafe.getBoolean(o, offset);
+		return accessor(field).getBool(object);
 	}
 
 	public static byte getByte(Class<?> type, String name, Object object) {
@@ -78,17 +92,7 @@ public final class Unsafes {
 	}
 
 	public static byte getByte(Field field, Object object) {
-		if (field.getType() != byte.class) throw new IllegalArgumentException("Method 'getByte' does not support field other than byte types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return Modifier.isVolatile(modifiers) ?
-				unsafe.getByteVolatile(o, offset) :
-				unsafe.getByte(o, offset);
+		return accessor(field).getByte(object);
 	}
 
 	public static short getShort(Class<?> type, String name, Object object) {
@@ -97,17 +101,7 @@ public final class Unsafes {
 	}
 
 	public static short getShort(Field field, Object object) {
-		if (field.getType() != short.class) throw new IllegalArgumentException("Method 'getShort' does not support field other than short types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return Modifier.isVolatile(modifiers) ?
-				unsafe.getShortVolatile(o, offset) :
-				unsafe.getShort(o, offset);
+		return accessor(field).getShort(object);
 	}
 
 	public static int getInt(Class<?> type, String name, Object object) {
@@ -116,17 +110,7 @@ public final class Unsafes {
 	}
 
 	public static int getInt(Field field, Object object) {
-		if (field.getType() != int.class) throw new IllegalArgumentException("Method 'getInt' does not support field other than int types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return Modifier.isVolatile(modifiers) ?
-				unsafe.getIntVolatile(o, offset) :
-				unsafe.getInt(o, offset);
+		return accessor(field).getInt(object);
 	}
 
 	public static long getLong(Class<?> type, String name, Object object) {
@@ -135,17 +119,7 @@ public final class Unsafes {
 	}
 
 	public static long getLong(Field field, Object object) {
-		if (field.getType() != long.class) throw new IllegalArgumentException("Method 'getLong' does not support field other than long types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return Modifier.isVolatile(modifiers) ?
-				unsafe.getLongVolatile(o, offset) :
-				unsafe.getLong(o, offset);
+		return accessor(field).getLong(object);
 	}
 
 	public static float getFloat(Class<?> type, String name, Object object) {
@@ -154,17 +128,7 @@ public final class Unsafes {
 	}
 
 	public static float getFloat(Field field, Object object) {
-		if (field.getType() != float.class) throw new IllegalArgumentException("Method 'getFloat' does not support field other than float types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return Modifier.isVolatile(modifiers) ?
-				unsafe.getFloatVolatile(o, offset) :
-				unsafe.getFloat(o, offset);
+		return accessor(field).getFloat(object);
 	}
 
 	public static double getDouble(Class<?> type, String name, Object object) {
@@ -173,17 +137,7 @@ public final class Unsafes {
 	}
 
 	public static double getDouble(Field field, Object object) {
-		if (field.getType() != double.class) throw new IllegalArgumentException("Method 'getDouble' does not support field other than double types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return Modifier.isVolatile(modifiers) ?
-				unsafe.getDoubleVolatile(o, offset) :
-				unsafe.getDouble(o, offset);
+		return accessor(field).getDouble(object);
 	}
 
 	public static char getChar(Class<?> type, String name, Object object) {
@@ -192,17 +146,7 @@ public final class Unsafes {
 	}
 
 	public static char getChar(Field field, Object object) {
-		if (field.getType() != char.class) throw new IllegalArgumentException("Method 'getChar' does not support field other than char types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		return Modifier.isVolatile(modifiers) ?
-				unsafe.getCharVolatile(o, offset) :
-				unsafe.getChar(o, offset);
+		return accessor(field).getChar(object);
 	}
 
 	public static void setObject(Class<?> type, String name, Object object, Object value) {
@@ -221,20 +165,7 @@ public final class Unsafes {
 	 *                                                                   instance of {@code field.getDeclaringClass()} or {@code null}.</ul>
 	 */
 	public static void setObject(Field field, Object object, Object value) {
-		if (field.getType().isPrimitive()) throw new IllegalArgumentException("Method 'getObject' does not support field of primitive types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putReferenceVolatile(o, offset, requireAssignableFrom(field.getType(), value));
-		} else {
-			unsafe.putReference(o, offset, requireAssignableFrom(field.getType(), value));
-		}
+		accessor(field).setObject(object, value);
 	}
 
 	public static void setBool(Class<?> type, String name, Object object, boolean value) {
@@ -244,19 +175,7 @@ public final class Unsafes {
 
 	/** <p><strong>Note: This is not useful for fields that can inline values during compilation.</strong> */
 	public static void setBool(Field field, Object object, boolean value) {
-		if (field.getType() != boolean.class) throw new IllegalArgumentException("Method 'setBool' does not support field other than boolean types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putBooleanVolatile(o, offset, value);
-		} else {
-			unsafe.putBoolean(o, offset, value);
-		}
+		accessor(field).setBool(object, value);
 	}
 
 	public static void setByte(Class<?> type, String name, Object object, byte value) {
@@ -265,19 +184,7 @@ public final class Unsafes {
 	}
 
 	public static void setByte(Field field, Object object, byte value) {
-		if (field.getType() != byte.class) throw new IllegalArgumentException("Method 'setByte' does not support field other than byte types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putByteVolatile(o, offset, value);
-		} else {
-			unsafe.putByte(o, offset, value);
-		}
+		accessor(field).setByte(object, value);
 	}
 
 	public static void setShort(Class<?> type, String name, Object object, short value) {
@@ -286,19 +193,7 @@ public final class Unsafes {
 	}
 
 	public static void setShort(Field field, Object object, short value) {
-		if (field.getType() != short.class) throw new IllegalArgumentException("Method 'setShort' does not support field other than short types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putShortVolatile(o, offset, value);
-		} else {
-			unsafe.putShort(o, offset, value);
-		}
+		accessor(field).setShort(object, value);
 	}
 
 	public static void setInt(Class<?> type, String name, Object object, int value) {
@@ -307,19 +202,7 @@ public final class Unsafes {
 	}
 
 	public static void setInt(Field field, Object object, int value) {
-		if (field.getType() != int.class) throw new IllegalArgumentException("Method 'setInt' does not support field other than int types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putIntVolatile(o, offset, value);
-		} else {
-			unsafe.putInt(o, offset, value);
-		}
+		accessor(field).setInt(object, value);
 	}
 
 	public static void setLong(Class<?> type, String name, Object object, long value) {
@@ -328,19 +211,7 @@ public final class Unsafes {
 	}
 
 	public static void setLong(Field field, Object object, long value) {
-		if (field.getType() != long.class) throw new IllegalArgumentException("Method 'setLong' does not support field other than long types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putLongVolatile(o, offset, value);
-		} else {
-			unsafe.putLong(o, offset, value);
-		}
+		accessor(field).setLong(object, value);
 	}
 
 	public static void setFloat(Class<?> type, String name, Object object, float value) {
@@ -349,19 +220,7 @@ public final class Unsafes {
 	}
 
 	public static void setFloat(Field field, Object object, float value) {
-		if (field.getType() != float.class) throw new IllegalArgumentException("Method 'setFloat' does not support field other than float types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putFloatVolatile(o, offset, value);
-		} else {
-			unsafe.putFloat(o, offset, value);
-		}
+		accessor(field).setFloat(object, value);
 	}
 
 	public static void setDouble(Class<?> type, String name, Object object, double value) {
@@ -370,19 +229,7 @@ public final class Unsafes {
 	}
 
 	public static void setDouble(Field field, Object object, double value) {
-		if (field.getType() != double.class) throw new IllegalArgumentException("Method 'setDouble' does not support field other than double types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putDoubleVolatile(o, offset, value);
-		} else {
-			unsafe.putDouble(o, offset, value);
-		}
+		accessor(field).setDouble(object, value);
 	}
 
 	public static void setChar(Class<?> type, String name, Object object, char value) {
@@ -391,120 +238,277 @@ public final class Unsafes {
 	}
 
 	public static void setChar(Field field, Object object, char value) {
-		if (field.getType() != char.class) throw new IllegalArgumentException("Method 'setChar' does not support field other than char types");
-
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			unsafe.putCharVolatile(o, offset, value);
-		} else {
-			unsafe.putChar(o, offset, value);
-		}
+		accessor(field).setChar(object, value);
 	}
 
 	public static Object get(Class<?> type, String name, Object object) {
 		try {
-			return get(type.getDeclaredField(name), object);
+			return accessor(type.getDeclaredField(name)).get(object);
 		} catch (NoSuchFieldException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
 	public static Object get(Field field, Object object) {
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Class<?> type = field.getType();
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			if (type.isPrimitive()) {
-				if (type == int.class) return unsafe.getIntVolatile(o, offset);
-				else if (type == float.class) return unsafe.getFloatVolatile(o, offset);
-				else if (type == boolean.class) return unsafe.getBooleanVolatile(o, offset);
-				else if (type == byte.class) return unsafe.getByteVolatile(o, offset);
-				else if (type == long.class) return unsafe.getLongVolatile(o, offset);
-				else if (type == double.class) return unsafe.getDoubleVolatile(o, offset);
-				else if (type == char.class) return unsafe.getCharVolatile(o, offset);
-				else if (type == short.class) return unsafe.getShortVolatile(o, offset);
-				else throw new IllegalArgumentException("unknown type of field " + field);
-			} else {
-				return unsafe.getReferenceVolatile(o, offset);
-			}
-		} else {
-			if (type.isPrimitive()) {
-				if (type == int.class) return unsafe.getInt(o, offset);
-				else if (type == float.class) return unsafe.getFloat(o, offset);
-				else if (type == boolean.class) return unsafe.getBoolean(o, offset);
-				else if (type == byte.class) return unsafe.getByte(o, offset);
-				else if (type == long.class) return unsafe.getDouble(o, offset);
-				else if (type == double.class) return unsafe.getLong(o, offset);
-				else if (type == char.class) return unsafe.getChar(o, offset);
-				else if (type == short.class) return unsafe.getShort(o, offset);
-				else throw new IllegalArgumentException("unknown type of field " + type);
-			} else {
-				return unsafe.getReference(o, offset);
-			}
-		}
+		return accessor(field).get(object);
 	}
 
 	public static void set(Class<?> type, String name, Object object, Object value) {
 		try {
-			set(type.getDeclaredField(name), object, value);
+			accessor(type.getDeclaredField(name)).set(object, value);
 		} catch (NoSuchFieldException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
 	public static void set(Field field, Object object, Object value) {
-		int modifiers = field.getModifiers();
-		boolean isStatic = Modifier.isStatic(modifiers);
-		long offset = isStatic ? unsafe.staticFieldOffset(field) : unsafe.objectFieldOffset(field);
-
-		Class<?> type = field.getType();
-		Object o = isStatic ? unsafe.staticFieldBase(field) : requireNonNullInstance(field.getDeclaringClass(), object);
-
-		if (Modifier.isVolatile(modifiers)) {
-			if (type.isPrimitive()) {
-				if (type == int.class) unsafe.putIntVolatile(o, offset, (int) value);
-				else if (type == float.class) unsafe.putFloatVolatile(o, offset, (float) value);
-				else if (type == boolean.class) unsafe.putBooleanVolatile(o, offset, (boolean) value);
-				else if (type == byte.class) unsafe.putByteVolatile(o, offset, (byte) value);
-				else if (type == long.class) unsafe.putLongVolatile(o, offset, (long) value);
-				else if (type == double.class) unsafe.putDoubleVolatile(o, offset, (double) value);
-				else if (type == char.class) unsafe.putCharVolatile(o, offset, (char) value);
-				else if (type == short.class) unsafe.putShortVolatile(o, offset, (short) value);
-				else throw new IllegalArgumentException("unknown type of field " + field);
-			} else {
-				unsafe.putReferenceVolatile(o, offset, requireAssignableFrom(type, value));
-			}
+		accessor(field).set(object, value);
+	}
+
+	/** @throws UnsupportedOperationException If {@code Unsafe} is not {@link #available}. */
+	static void requireAvailable() {
+		if (!available) throw new UnsupportedOperationException("Unsafe is not available");
+	}
+
+	/**
+	 * Get the log2 of the element size of a primitive array, after checking that the range lies within the array.
+	 *
+	 * @throws IllegalArgumentException If the object is not a primitive array.
+	 * @throws IndexOutOfBoundsException If the range is out of the bounds of the array.
+	 */
+	static int checkRange(Object array, int index, int length) {
+		int size, shift;
+		switch (array) {
+			case byte[] a -> { size = a.length; shift = 0; }
+			case boolean[] a -> { size = a.length; shift = 0; }
+			case short[] a -> { size = a.length; shift = 1; }
+			case char[] a -> { size = a.length; shift = 1; }
+			case int[] a -> { size = a.length; shift = 2; }
+			case float[] a -> { size = a.length; shift = 2; }
+			case long[] a -> { size = a.length; shift = 3; }
+			case double[] a -> { size = a.length; shift = 3; }
+			case null -> throw new NullPointerException("array");
+			default -> throw new IllegalArgumentException("not a primitive array: " + array.getClass().getName());
+		}
+		Objects.checkFromIndexSize(index, length, size);
+		return shift;
+	}
+
+	/**
+	 * @return The offset of the first element in arrays of the class, to use as the offset of the raw memory operations with an
+	 * array as base object
+	 * @throws UnsupportedOperationException If {@code Unsafe} is not {@link #available}.
+	 */
+	public static long arrayBaseOffset(Class<?> arrayClass) {
+		requireAvailable();
+
+		return unsafe.arrayBaseOffset(arrayClass);
+	}
+
+	/**
+	 * Copy bytes between two locations, each either an offset in a heap object or an absolute off-heap address with a null base.
+	 * Nothing is checked, the ranges must be valid.
+	 *
+	 * @throws UnsupportedOperationException If {@code Unsafe} is not {@link #available}.
+	 */
+	public static void copyMemory(Object src, long srcOffset, Object dest, long destOffset, long bytes) {
+		requireAvailable();
+
+		unsafe.copyMemory(src, srcOffset, dest, destOffset, bytes);
+	}
+
+	/** Copy bytes between two off-heap addresses. */
+	public static void copyMemory(long srcAddress, long destAddress, long bytes) {
+		copyMemory(null, srcAddress, null, destAddress, bytes);
+	}
+
+	/**
+	 * Copy elements of a primitive array to an off-heap address.
+	 *
+	 * @param length The number of elements
+	 * @throws IndexOutOfBoundsException If the range is out of the bounds of the array.
+	 */
+	public static void copyToAddress(Object array, int index, long address, int length) {
+		requireAvailable();
+
+		int shift = checkRange(array, index, length);
+		unsafe.copyMemory(array, unsafe.arrayBaseOffset(array.getClass()) + ((long) index << shift), null, address, (long) length << shift);
+	}
+
+	/**
+	 * Copy elements from an off-heap address into a primitive array.
+	 *
+	 * @param length The number of elements
+	 * @throws IndexOutOfBoundsException If the range is out of the bounds of the array.
+	 */
+	public static void copyFromAddress(long address, Object array, int index, int length) {
+		requireAvailable();
+
+		int shift = checkRange(array, index, length);
+		unsafe.copyMemory(null, address, array, unsafe.arrayBaseOffset(array.getClass()) + ((long) index << shift), (long) length << shift);
+	}
+
+	/**
+	 * Set the bytes of a location, an offset in a heap object or an absolute off-heap address with a null base, to a value.
+	 *
+	 * @throws UnsupportedOperationException If {@code Unsafe} is not {@link #available}.
+	 */
+	public static void fillMemory(Object base, long offset, long bytes, byte value) {
+		requireAvailable();
+
+		unsafe.setMemory(base, offset, bytes, value);
+	}
+
+	public static void fillMemory(long address, long bytes, byte value) {
+		fillMemory(null, address, bytes, value);
+	}
+
+	/**
+	 * Find the first byte that differs between two locations, comparing eight bytes at a time. Each location is an offset in
+	 * a heap object or an absolute off-heap address with a null base.
+	 *
+	 * @return The index of the first differing byte, or -1 if the ranges are equal
+	 * @throws UnsupportedOperationException If {@code Unsafe} is not {@link #available}.
+	 */
+	public static long mismatchMemory(Object a, long aOffset, Object b, long bOffset, long bytes) {
+		requireAvailable();
+
+		long i = 0l;
+		for (; i + 8l <= bytes; i += 8l) {
+			// Read as little-endian on every platform, so the lowest set bit belongs to the first differing byte.
+			long diff = unsafe.getLongUnaligned(a, aOffset + i, false) ^ unsafe.getLongUnaligned(b, bOffset + i, false);
+			if (diff != 0l) return i + (Long.numberOfTrailingZeros(diff) >>> 3);
+		}
+		for (; i < bytes; i++) {
+			if (unsafe.getByte(a, aOffset + i) != unsafe.getByte(b, bOffset + i)) return i;
+		}
+		return -1l;
+	}
+
+	public static long mismatchMemory(long aAddress, long bAddress, long bytes) {
+		return mismatchMemory(null, aAddress, null, bAddress, bytes);
+	}
+
+	/**
+	 * Compare two locations lexicographically as unsigned bytes, like {@link Arrays#compareUnsigned(byte[], byte[])}.
+	 *
+	 * @return A negative value, zero or a positive value if the first range is less than, equal to or greater than the second
+	 */
+	public static int compareMemory(Object a, long aOffset, Object b, long bOffset, long bytes) {
+		long i = mismatchMemory(a, aOffset, b, bOffset, bytes);
+		return i < 0l ? 0 : Byte.toUnsignedInt(unsafe.getByte(a, aOffset + i)) - Byte.toUnsignedInt(unsafe.getByte(b, bOffset + i));
+	}
+
+	public static int compareMemory(long aAddress, long bAddress, long bytes) {
+		return compareMemory(null, aAddress, null, bAddress, bytes);
+	}
+
+	/**
+	 * Find the first element that differs between ranges of two primitive arrays of the same type. This works without
+	 * {@code Unsafe} as well, through the vectorized {@link Arrays#mismatch} methods. Unlike
+	 * {@link #mismatchMemory(Object, long, Object, long, long)}, the positions are element indices, not byte offsets.
+	 *
+	 * @return The index of the first differing element relative to the start of the ranges, or -1 if the ranges are equal
+	 * @throws IllegalArgumentException If the arrays are not primitive arrays of the same type.
+	 * @throws IndexOutOfBoundsException If a range is out of the bounds of its array.
+	 */
+	public static int mismatch(Object a, int aIndex, Object b, int bIndex, int length) {
+		checkRange(a, aIndex, length);
+		checkRange(b, bIndex, length);
+
+		int aTo = aIndex + length, bTo = bIndex + length;
+		if (a instanceof byte[] x && b instanceof byte[] y) return Arrays.mismatch(x, aIndex, aTo, y, bIndex, bTo);
+		else if (a instanceof int[] x && b instanceof int[] y) return Arrays.mismatch(x, aIndex, aTo, y, bIndex, bTo);
+		else if (a instanceof long[] x && b instanceof long[] y) return Arrays.mismatch(x, aIndex, aTo, y, bIndex, bTo);
+		else if (a instanceof float[] x && b instanceof float[] y) return Arrays.mismatch(x, aIndex, aTo, y, bIndex, bTo);
+		else if (a instanceof double[] x && b instanceof double[] y) return Arrays.mismatch(x, aIndex, aTo, y, bIndex, bTo);
+		else if (a instanceof short[] x && b instanceof short[] y) return Arrays.mismatch(x, aIndex, aTo, y, bIndex, bTo);
+		else if (a instanceof char[] x && b instanceof char[] y) return Arrays.mismatch(x, aIndex, aTo, y, bIndex, bTo);
+		else if (a instanceof boolean[] x && b instanceof boolean[] y) return Arrays.mismatch(x, aIndex, aTo, y, bIndex, bTo);
+		throw new IllegalArgumentException("arrays of different types: " + a.getClass().getName() + ", " + b.getClass().getName());
+	}
+
+	/**
+	 * Fill a range of a byte array, without {@code Unsafe} this is {@link Arrays#fill(byte[], int, int, byte)}.
+	 *
+	 * @throws IndexOutOfBoundsException If the range is out of the bounds of the array.
+	 */
+	public static void fill(byte[] array, int index, int length, byte value) {
+		Objects.checkFromIndexSize(index, length, array.length);
+
+		if (available) {
+			unsafe.setMemory(array, Unsafe.ARRAY_BYTE_BASE_OFFSET + index, length, value);
 		} else {
-			if (type.isPrimitive()) {
-				if (type == int.class) unsafe.putInt(o, offset, (int) value);
-				else if (type == float.class) unsafe.putFloat(o, offset, (float) value);
-				else if (type == boolean.class) unsafe.putBoolean(o, offset, (boolean) value);
-				else if (type == byte.class) unsafe.putByte(o, offset, (byte) value);
-				else if (type == double.class) unsafe.putDouble(o, offset, (double) value);
-				else if (type == long.class) unsafe.putLong(o, offset, (long) value);
-				else if (type == char.class) unsafe.putChar(o, offset, (char) value);
-				else if (type == short.class) unsafe.putShort(o, offset, (short) value);
-				else throw new IllegalArgumentException("unknown type of field " + field);
-			} else {
-				unsafe.putReference(o, offset, requireAssignableFrom(type, value));
-			}
+			Arrays.fill(array, index, index + length, value);
 		}
 	}
 
+	// The off-heap accessors below check nothing, the address must be valid.
+
+	public static byte getByte(long address) {
+		requireAvailable();
+		return unsafe.getByte(address);
+	}
+
+	public static void setByte(long address, byte value) {
+		requireAvailable();
+		unsafe.putByte(address, value);
+	}
+
+	public static short getShort(long address) {
+		requireAvailable();
+		return unsafe.getShortUnaligned(null, address);
+	}
+
+	public static void setShort(long address, short value) {
+		requireAvailable();
+		unsafe.putShortUnaligned(null, address, value);
+	}
+
+	public static int getInt(long address) {
+		requireAvailable();
+		return unsafe.getIntUnaligned(null, address);
+	}
+
+	public static void setInt(long address, int value) {
+		requireAvailable();
+		unsafe.putIntUnaligned(null, address, value);
+	}
+
+	public static long getLong(long address) {
+		requireAvailable();
+		return unsafe.getLongUnaligned(null, address);
+	}
+
+	public static void setLong(long address, long value) {
+		requireAvailable();
+		unsafe.putLongUnaligned(null, address, value);
+	}
+
+	public static float getFloat(long address) {
+		return Float.intBitsToFloat(getInt(address));
+	}
+
+	public static void setFloat(long address, float value) {
+		setInt(address, Float.floatToRawIntBits(value));
+	}
+
+	public static double getDouble(long address) {
+		return Double.longBitsToDouble(getLong(address));
+	}
+
+	public static void setDouble(long address, double value) {
+		setLong(address, Double.doubleToRawLongBits(value));
+	}
+
 	public static Class<?> defineClass(String name, byte[] bytes, ClassLoader loader) {
 		return defineClass(name, bytes, loader, null);
 	}
 
+	/** @throws UnsupportedOperationException If {@code Unsafe} is not {@link #available}. */
 	public static Class<?> defineClass(String name, byte[] bytes, ClassLoader loader, ProtectionDomain protectionDomain) {
+		requireAvailable();
+
 		return unsafe.defineClass(name, bytes, 0, bytes.length, loader, protectionDomain);
 	}
 }
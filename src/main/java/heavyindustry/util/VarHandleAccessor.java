@@ -0,0 +1,289 @@
+package heavyindustry.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static heavyindustry.util.Structs.requireAssignableFrom;
+import static heavyindustry.util.Structs.requireNonNullInstance;
+
+/**
+ * A field resolved once for access through a {@link VarHandle}, the counterpart of {@link FieldAccessor} used when
+ * {@code Unsafe} is not {@link Unsafes#available}. Non-volatile fields are accessed with plain reads and writes, volatile
+ * fields with volatile ones, as with {@link FieldAccessor}.
+ * <p>The handle is created through {@link Reflects#lookup()} if it has been initialized, otherwise the declaring class must be
+ * open to this mod. Static final fields are read-only.
+ *
+ * @see Unsafes#accessor(Field)
+ * @since 1.0.8
+ */
+public final class VarHandleAccessor implements FieldAccess {
+	static final ClassValue<ConcurrentHashMap<Field, VarHandleAccessor>> accessors = new ClassValue<>() {
+		@Override
+		protected ConcurrentHashMap<Field, VarHandleAccessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	public final Field field;
+	public final Class<?> type, declaringClass;
+	public final boolean isStatic, isVolatile;
+	public final VarHandle handle;
+
+	VarHandleAccessor(Field field) {
+		int modifiers = field.getModifiers();
+
+		this.field = field;
+		type = field.getType();
+		declaringClass = field.getDeclaringClass();
+		isStatic = Modifier.isStatic(modifiers);
+		isVolatile = Modifier.isVolatile(modifiers);
+
+		try {
+			MethodHandles.Lookup lookup = Reflects.lookup != null ? Reflects.lookup : MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+			handle = lookup.unreflectVarHandle(field);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** Get the cached accessor of a field, creating it on first use. */
+	public static VarHandleAccessor of(Field field) {
+		return accessors.get(field.getDeclaringClass()).computeIfAbsent(field, VarHandleAccessor::new);
+	}
+
+	Object instance(Object object) {
+		return requireNonNullInstance(declaringClass, object);
+	}
+
+	void check(Class<?> expected, String method) {
+		if (type != expected) throw new IllegalArgumentException("Method '" + method + "' does not support field other than " + expected.getName() + " types");
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T getObject(Object object) {
+		if (type.isPrimitive()) throw new IllegalArgumentException("Method 'getObject' does not support field of primitive types");
+
+		return (T) get(object);
+	}
+
+	@Override
+	public boolean getBool(Object object) {
+		check(boolean.class, "getBool");
+
+		if (isStatic) return isVolatile ? (boolean) handle.getVolatile() : (boolean) handle.get();
+		Object o = instance(object);
+		return isVolatile ? (boolean) handle.getVolatile(o) : (boolean) handle.get(o);
+	}
+
+	@Override
+	public byte getByte(Object object) {
+		check(byte.class, "getByte");
+
+		if (isStatic) return isVolatile ? (byte) handle.getVolatile() : (byte) handle.get();
+		Object o = instance(object);
+		return isVolatile ? (byte) handle.getVolatile(o) : (byte) handle.get(o);
+	}
+
+	@Override
+	public short getShort(Object object) {
+		check(short.class, "getShort");
+
+		if (isStatic) return isVolatile ? (short) handle.getVolatile() : (short) handle.get();
+		Object o = instance(object);
+		return isVolatile ? (short) handle.getVolatile(o) : (short) handle.get(o);
+	}
+
+	@Override
+	public int getInt(Object object) {
+		check(int.class, "getInt");
+
+		if (isStatic) return isVolatile ? (int) handle.getVolatile() : (int) handle.get();
+		Object o = instance(object);
+		return isVolatile ? (int) handle.getVolatile(o) : (int) handle.get(o);
+	}
+
+	@Override
+	public long getLong(Object object) {
+		check(long.class, "getLong");
+
+		if (isStatic) return isVolatile ? (long) handle.getVolatile() : (long) handle.get();
+		Object o = instance(object);
+		return isVolatile ? (long) handle.getVolatile(o) : (long) handle.get(o);
+	}
+
+	@Override
+	public float getFloat(Object object) {
+		check(float.class, "getFloat");
+
+		if (isStatic) return isVolatile ? (float) handle.getVolatile() : (float) handle.get();
+		Object o = instance(object);
+		return isVolatile ? (float) handle.getVolatile(o) : (float) handle.get(o);
+	}
+
+	@Override
+	public double getDouble(Object object) {
+		check(double.class, "getDouble");
+
+		if (isStatic) return isVolatile ? (double) handle.getVolatile() : (double) handle.get();
+		Object o = instance(object);
+		return isVolatile ? (double) handle.getVolatile(o) : (double) handle.get(o);
+	}
+
+	@Override
+	public char getChar(Object object) {
+		check(char.class, "getChar");
+
+		if (isStatic) return isVolatile ? (char) handle.getVolatile() : (char) handle.get();
+		Object o = instance(object);
+		return isVolatile ? (char) handle.getVolatile(o) : (char) handle.get(o);
+	}
+
+	@Override
+	public Object get(Object object) {
+		if (isStatic) return isVolatile ? handle.getVolatile() : handle.get();
+		Object o = instance(object);
+		return isVolatile ? handle.getVolatile(o) : handle.get(o);
+	}
+
+	@Override
+	public void setObject(Object object, Object value) {
+		if (type.isPrimitive()) throw new IllegalArgumentException("Method 'setObject' does not support field of primitive types");
+
+		set(object, requireAssignableFrom(type, value));
+	}
+
+	@Override
+	public void setBool(Object object, boolean value) {
+		check(boolean.class, "setBool");
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public void setByte(Object object, byte value) {
+		check(byte.class, "setByte");
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public void setShort(Object object, short value) {
+		check(short.class, "setShort");
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public void setInt(Object object, int value) {
+		check(int.class, "setInt");
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public void setLong(Object object, long value) {
+		check(long.class, "setLong");
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public void setFloat(Object object, float value) {
+		check(float.class, "setFloat");
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public void setDouble(Object object, double value) {
+		check(double.class, "setDouble");
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public void setChar(Object object, char value) {
+		check(char.class, "setChar");
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public void set(Object object, Object value) {
+		if (!type.isPrimitive()) requireAssignableFrom(type, value);
+
+		if (isStatic) {
+			if (isVolatile) handle.setVolatile(value);
+			else handle.set(value);
+		} else {
+			Object o = instance(object);
+			if (isVolatile) handle.setVolatile(o, value);
+			else handle.set(o, value);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "VarHandleAccessor[" + field + "]";
+	}
+}
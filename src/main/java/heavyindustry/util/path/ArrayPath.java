@@ -0,0 +1,187 @@
+package heavyindustry.util.path;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Path implementation based on an array, with free space kept at both ends so that {@link #addFirst(Object)} and
+ * {@link #addLast(Object)} are both amortized constant time. Compared to {@link GenericPath} it costs no node object per vertex,
+ * supports random access through {@link #get(int)}, and can be reused after {@link #clear()} without reallocating.
+ * <p>When the length of the path is known in advance, call {@link #reserve(int)} before inserting the vertices from the end to
+ * the start, the path is then filled in reverse into an array of exactly that size.
+ *
+ * @since 1.0.8
+ */
+public class ArrayPath<V> implements IPath<V> {
+	protected static final Object[] EMPTY = {};
+
+	protected Object[] items;
+	protected int head, size;
+
+	protected final boolean readOnly;
+
+	/** Creates an empty path, the array is allocated on the first insertion. */
+	public ArrayPath() {
+		items = EMPTY;
+		readOnly = false;
+	}
+
+	/** Creates an empty path that can hold the given number of vertices without growing. */
+	public ArrayPath(int capacity) {
+		items = capacity == 0 ? EMPTY : new Object[capacity];
+		head = capacity / 2;
+		readOnly = false;
+	}
+
+	protected ArrayPath(Object[] items, int head, int size) {
+		this.items = items;
+		this.head = head;
+		this.size = size;
+		readOnly = true;
+	}
+
+	@Override
+	public void addFirst(V next) {
+		checkWritable();
+		if (head == 0) grow(true);
+
+		items[--head] = next;
+		size++;
+	}
+
+	@Override
+	public void addLast(V next) {
+		checkWritable();
+		if (head + size == items.length) grow(false);
+
+		items[head + size] = next;
+		size++;
+	}
+
+	/**
+	 * Make room for the given number of vertices. If the path is empty, all the space is placed before the start, so that the
+	 * following {@link #addFirst(Object)} calls fill the array in reverse without moving any element.
+	 */
+	@Override
+	public void reserve(int count) {
+		checkWritable();
+		if (size == 0) {
+			if (items.length < count) items = new Object[count];
+			head = items.length;
+		} else if (head < count) {
+			int capacity = Math.max(items.length, size + count);
+			Object[] newItems = new Object[capacity];
+			System.arraycopy(items, head, newItems, capacity - size, size);
+			items = newItems;
+			head = capacity - size;
+		}
+	}
+
+	protected void grow(boolean front) {
+		int capacity = items.length;
+		if (size + 1 > capacity / 2) capacity = Math.max(8, capacity * 2);
+
+		int spare = capacity - size;
+		int newHead = front ? spare - spare / 4 : spare / 4;
+
+		if (capacity == items.length) {
+			System.arraycopy(items, head, items, newHead, size);
+			if (newHead > head) {
+				Arrays.fill(items, head, Math.min(newHead, head + size), null);
+			} else {
+				Arrays.fill(items, Math.max(newHead + size, head), head + size, null);
+			}
+		} else {
+			Object[] newItems = new Object[capacity];
+			System.arraycopy(items, head, newItems, newHead, size);
+			items = newItems;
+		}
+		head = newHead;
+	}
+
+	/** @return The vertex at the given position, the origin has the index 0. */
+	@SuppressWarnings("unchecked")
+	public V get(int index) {
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+		return (V) items[head + index];
+	}
+
+	/** @return The number of vertices of the path. */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public V origin() {
+		if (size == 0) throw new NoSuchElementException("Path is empty.");
+		return get(0);
+	}
+
+	@Override
+	public V destination() {
+		if (size == 0) throw new NoSuchElementException("Path is empty.");
+		return get(size - 1);
+	}
+
+	/**
+	 * Get a read only view over a section of this path, without copying the vertices.
+	 * The view is only valid as long as this path is not modified or cleared.
+	 *
+	 * @param from The index of the first vertex, inclusive
+	 * @param to   The index of the last vertex, exclusive
+	 */
+	public ArrayPath<V> subPath(int from, int to) {
+		if (from < 0 || to > size || from > to)
+			throw new IndexOutOfBoundsException("subPath range out of bounds: [" + from + ", " + to + ") of " + size);
+		return new ArrayPath<>(items, head + from, to - from);
+	}
+
+	/** Remove all vertices, the array is kept so the path can be filled again without allocating. */
+	public void clear() {
+		checkWritable();
+		Arrays.fill(items, head, head + size, null);
+		head = items.length / 2;
+		size = 0;
+	}
+
+	public Object[] toArray() {
+		return Arrays.copyOfRange(items, head, head + size);
+	}
+
+	protected void checkWritable() {
+		if (readOnly) throw new UnsupportedOperationException("subPath views are read only");
+	}
+
+	@Override
+	public Iterator<V> iterator() {
+		return new Iterator<>() {
+			int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public V next() {
+				if (index >= size) throw new NoSuchElementException(String.valueOf(index));
+				return get(index++);
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(32).append('[');
+		for (int i = 0; i < size; i++) {
+			if (i > 0) builder.append(" -> ");
+			builder.append(items[head + i]);
+		}
+		return builder.append(']').toString();
+	}
+}
@@ -33,6 +33,17 @@ public interface BFSPathFinder<V> extends PathFinder<V> {
 		return false;
 	}
 
+	/**
+	 * The metrics that record the costs of the searches of this finder. Instrumentation is opt-in, by default this returns null
+	 * and nothing is recorded. Implementations usually return a shared instance such as {@code PathMetrics.of("power")}.
+	 *
+	 * @return The metrics to record into, or null
+	 * @see PathMetrics
+	 */
+	default PathMetrics metrics() {
+		return null;
+	}
+
 	/**
 	 * Retrieve the backtracking pointer associated with the vertex. If the vertex has not been associated yet, null should be returned.
 	 *
@@ -59,13 +70,15 @@ public interface BFSPathFinder<V> extends PathFinder<V> {
 
 	/**
 	 * Create a path object that should be able to return a blank path during implementation.
-	 * You may also need to implement the {@link IPath} interface and return its instance, or use the default implementation {@link GenericPath} directly.
+	 * You may also implement the {@link IPath} interface and return its instance, by default an {@link ArrayPath} is returned.
 	 *
 	 * @return An empty path
 	 * @see IPath
-	 * @see GenericPath
+	 * @see ArrayPath
 	 */
-	IPath<V> createPath();
+	default IPath<V> createPath() {
+		return new ArrayPath<>();
+	}
 
 	/**
 	 * A standard BFS pathfinding implementation typically finds the shortest or one of the shortest paths in an unweighted graph.
@@ -74,22 +87,49 @@ public interface BFSPathFinder<V> extends PathFinder<V> {
 	 */
 	@Override
 	default void findPath(V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		findPath(origin, pathConsumer, null);
+	}
+
+	/**
+	 * The search of {@link #findPath(Object, PathFindFunc.PathAcceptor)} that also reports every vertex it expands, which are
+	 * the vertices {@link #eachVertices(Object, PathFindFunc.VerticesAcceptor)} would traverse, so both can be had in one pass.
+	 *
+	 * <p>An implementation that overrides {@link #findPath(Object, PathFindFunc.PathAcceptor)} with a different search should
+	 * override this method as well, {@link CachedPathFinder} calls it instead.
+	 *
+	 * @param vertConsumer Receives each expanded vertex, can be null
+	 */
+	default void findPath(V origin, PathFindFunc.PathAcceptor<V> pathConsumer, PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		PathMetrics.Probe probe = PathMetrics.begin(metrics(), PathMetrics.FIND_PATH);
+
 		reset();
 		queueAdd(origin);
 		relateToPointer(origin, null);
+		if (probe != null) probe.enqueue();
 
 		V next;
 		while ((next = queueNext()) != null) {
+			if (probe != null) probe.expand();
+			if (vertConsumer != null) vertConsumer.accept(next);
+
 			PathPointer<V> pointer = getPointer(next);
 			for (V vert : getLinkVertices(next)) {
+				if (probe != null) probe.relax();
 				if (!exclude(vert) && relateToPointer(vert, pointer)) {
 					queueAdd(vert);
+					if (probe != null) probe.enqueue();
 				}
 			}
 
 			if (isDestination(origin, next)) {
+				int length = 1;
+				for (PathPointer<V> p = pointer.previous; p != null; p = p.previous) {
+					length++;
+				}
+
 				PathPointer<V> tracePointer = pointer;
 				IPath<V> path = createPath();
+				path.reserve(length);
 				path.addFirst(pointer.self);
 
 				while ((tracePointer = tracePointer.previous) != null) {
@@ -99,6 +139,22 @@ public interface BFSPathFinder<V> extends PathFinder<V> {
 				pathConsumer.accept(next, path);
 			}
 		}
+
+		if (probe != null) probe.end();
+	}
+
+	/**
+	 * Create a resumable search from the origin, which can be advanced step by step. The search keeps its own state and does
+	 * not use {@link #queueAdd(Object)}, {@link #queueNext()} or the pointers of this finder, {@link #reset()} is not called.
+	 * <p>It expands the vertices in breadth first order with its own queue, while {@link #findPath(Object, PathFindFunc.PathAcceptor)}
+	 * follows the order of the queue of the implementation. It reaches the same destinations, but where a destination can be
+	 * reached by several routes the path it delivers may differ, it is always one of the shortest.
+	 *
+	 * @see PathSearch
+	 * @see PathSearchQueue
+	 */
+	default PathSearch<V> beginSearch(V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		return new PathSearch<>(this, origin, pathConsumer);
 	}
 
 	/**
@@ -108,19 +164,28 @@ public interface BFSPathFinder<V> extends PathFinder<V> {
 	 */
 	@Override
 	default void eachVertices(V origin, PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		PathMetrics.Probe probe = PathMetrics.begin(metrics(), PathMetrics.EACH_VERTICES);
+
 		reset();
 		queueAdd(origin);
 		relateToPointer(origin, null);
+		if (probe != null) probe.enqueue();
 
 		V v;
 		while ((v = queueNext()) != null) {
+			if (probe != null) probe.expand();
+
 			for (V vert : getLinkVertices(v)) {
+				if (probe != null) probe.relax();
 				if (!exclude(vert) && relateToPointer(vert, null)) {
 					queueAdd(vert);
+					if (probe != null) probe.enqueue();
 				}
 			}
 			vertConsumer.accept(v);
 		}
+
+		if (probe != null) probe.end();
 	}
 
 	/**
@@ -0,0 +1,193 @@
+package heavyindustry.util.path;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Runs breadth first searches from many origins over the same graph, for example when every machine of a world computes its
+ * routes at load time. The search state lives in flat arrays indexed by {@link IndexedPathFinder#vertexIndex(Object)} that are
+ * reused from one origin to the next: instead of clearing them, every run increases an epoch and a vertex counts as visited
+ * only if its stamp equals the current epoch, so starting a search costs nothing regardless of the graph size.
+ * <p>The origins can be spread across the threads of a {@link ForkJoinPool}, each thread then works with its own state arrays.
+ * The graph hooks must be safe for concurrent reads in that case.
+ * <p>If the graph is a {@link BFSPathFinder}, its {@link BFSPathFinder#exclude(Object)} and {@link BFSPathFinder#createPath()}
+ * are used.
+ *
+ * @since 1.0.8
+ */
+public class BatchPathSearch<V> {
+	protected final IndexedPathFinder<V> graph;
+
+	/** Idle state arrays, kept between batches. */
+	protected final ConcurrentLinkedQueue<Workspace> workspaces = new ConcurrentLinkedQueue<>();
+
+	/** @param graph The graph to search */
+	public BatchPathSearch(IndexedPathFinder<V> graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Search from every origin on the calling thread.
+	 *
+	 * @param consumers Provides the callback receiving the paths of each origin
+	 */
+	public void findPaths(List<V> origins, Function<? super V, PathFindFunc.PathAcceptor<V>> consumers) {
+		Workspace workspace = acquire();
+		try {
+			for (V origin : origins) {
+				search(workspace, origin, consumers.apply(origin));
+			}
+		} finally {
+			workspaces.add(workspace);
+		}
+	}
+
+	/**
+	 * Search from every origin, spreading the origins over the threads of the pool. The callbacks are invoked on the worker
+	 * threads, each origin's callback only from one thread, and this method returns once all origins are done.
+	 *
+	 * @param consumers Provides the callback receiving the paths of each origin, called from the worker threads
+	 */
+	public void findPathsParallel(List<V> origins, Function<? super V, PathFindFunc.PathAcceptor<V>> consumers, ForkJoinPool pool) {
+		if (origins.isEmpty()) return;
+
+		int chunk = Math.max(1, origins.size() / (pool.getParallelism() * 4));
+		pool.invoke(new BatchTask(origins, consumers, 0, origins.size(), chunk));
+	}
+
+	/** Search from every origin on the common pool. */
+	public void findPathsParallel(List<V> origins, Function<? super V, PathFindFunc.PathAcceptor<V>> consumers) {
+		findPathsParallel(origins, consumers, ForkJoinPool.commonPool());
+	}
+
+	protected Workspace acquire() {
+		Workspace workspace = workspaces.poll();
+		return workspace != null ? workspace : new Workspace();
+	}
+
+	protected void search(Workspace ws, V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		ws.begin(graph.vertexCapacity());
+
+		int start = graph.vertexIndex(origin);
+		int epoch = ws.epoch;
+		int[] stamps = ws.stamps, previous = ws.previous, depth = ws.depth, queue = ws.queue;
+		Object[] vertices = ws.vertices;
+
+		int head = 0, tail = 0;
+		stamps[start] = epoch;
+		previous[start] = -1;
+		depth[start] = 0;
+		vertices[start] = origin;
+		queue[tail++] = start;
+
+		while (head < tail) {
+			int curr = queue[head++];
+			@SuppressWarnings("unchecked")
+			V vert = (V) vertices[curr];
+
+			for (V next : graph.getLinkVertices(vert)) {
+				if (exclude(next)) continue;
+
+				int index = graph.vertexIndex(next);
+				if (stamps[index] != epoch) {
+					stamps[index] = epoch;
+					previous[index] = curr;
+					depth[index] = depth[curr] + 1;
+					vertices[index] = next;
+					queue[tail++] = index;
+				}
+			}
+
+			if (graph.isDestination(origin, vert)) {
+				pathConsumer.accept(vert, trace(ws, curr));
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected IPath<V> trace(Workspace ws, int index) {
+		IPath<V> path = createPath();
+		path.reserve(ws.depth[index] + 1);
+		for (int i = index; i >= 0; i = ws.previous[i]) {
+			path.addFirst((V) ws.vertices[i]);
+		}
+		return path;
+	}
+
+	protected boolean exclude(V vert) {
+		return graph instanceof BFSPathFinder<V> finder && finder.exclude(vert);
+	}
+
+	protected IPath<V> createPath() {
+		return graph instanceof BFSPathFinder<V> finder ? finder.createPath() : new ArrayPath<>();
+	}
+
+	/** Drop the idle state arrays, for example after the graph has shrunk a lot. */
+	public void trim() {
+		workspaces.clear();
+	}
+
+	/** The search state of one thread, valid entries are those whose stamp equals the current epoch. */
+	protected static class Workspace {
+		public int epoch;
+		public int[] stamps = new int[0], previous = new int[0], depth = new int[0], queue = new int[0];
+		public Object[] vertices = new Object[0];
+
+		/** Start a new run, growing the arrays if the graph has grown. */
+		public void begin(int capacity) {
+			if (stamps.length < capacity) {
+				stamps = new int[capacity];
+				previous = new int[capacity];
+				depth = new int[capacity];
+				queue = new int[capacity];
+				vertices = new Object[capacity];
+				epoch = 0;
+			}
+
+			if (++epoch == 0) {
+				// The epoch has wrapped around, old stamps could be taken for current ones.
+				Arrays.fill(stamps, 0);
+				epoch = 1;
+			}
+		}
+	}
+
+	protected class BatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 6217903358624411583l;
+
+		protected final transient List<V> origins;
+		protected final transient Function<? super V, PathFindFunc.PathAcceptor<V>> consumers;
+		protected final int from, to, chunk;
+
+		protected BatchTask(List<V> origins, Function<? super V, PathFindFunc.PathAcceptor<V>> consumers, int from, int to, int chunk) {
+			this.origins = origins;
+			this.consumers = consumers;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunk) {
+				Workspace workspace = acquire();
+				try {
+					for (int i = from; i < to; i++) {
+						V origin = origins.get(i);
+						search(workspace, origin, consumers.apply(origin));
+					}
+				} finally {
+					workspaces.add(workspace);
+				}
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			invokeAll(new BatchTask(origins, consumers, from, mid, chunk), new BatchTask(origins, consumers, mid, to, chunk));
+		}
+	}
+}
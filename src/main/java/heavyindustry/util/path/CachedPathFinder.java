@@ -0,0 +1,205 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * A caching decorator of a path searcher. The results of {@link #findPath(Object, PathFindFunc.PathAcceptor)} and
+ * {@link #eachVertices(Object, PathFindFunc.VerticesAcceptor)} are stored per origin, together with the set of vertices
+ * traversed by the search, and are replayed on later calls until an edit of the graph invalidates them.
+ * <p>If the source is a {@link BFSPathFinder}, a cache miss is a single search that records the traversed vertices while it
+ * finds the paths, other sources are traversed a second time with {@code eachVertices}.
+ * <p>Invalidation is targeted: the cache keeps an index from each vertex to the origins whose search traversed it, and a
+ * notification through {@link GraphListener} only drops the entries that traversed the edited vertex. An edge change only
+ * affects the searches that reached the vertex the edge starts from.
+ * <p><strong>Note:</strong> The path objects passed to the callback are shared between all calls that hit the same entry,
+ * they should be treated as read only. This class is not thread-safe.
+ *
+ * @since 1.0.8
+ */
+public class CachedPathFinder<V> implements PathFinder<V>, GraphListener<V> {
+	protected final PathFinder<V> source;
+
+	protected final HashMap<V, CacheEntry<V>> entries = new HashMap<>();
+	/** The origins of the cached searches that traversed each vertex. */
+	protected final HashMap<V, HashSet<V>> dependents = new HashMap<>();
+
+	protected long version;
+	protected long hits, misses, invalidations;
+
+	/** @param source The searcher that computes the results on a cache miss */
+	public CachedPathFinder(PathFinder<V> source) {
+		this.source = source;
+	}
+
+	@Override
+	public Iterable<V> getLinkVertices(V curr) {
+		return source.getLinkVertices(curr);
+	}
+
+	@Override
+	public boolean isDestination(V origin, V vert) {
+		return source.isDestination(origin, vert);
+	}
+
+	@Override
+	public void findPath(V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		CacheEntry<V> entry = lookup(origin);
+		for (int i = 0; i < entry.destinations.size(); i++) {
+			pathConsumer.accept(entry.destinations.get(i), entry.paths.get(i));
+		}
+	}
+
+	@Override
+	public void eachVertices(V origin, PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		CacheEntry<V> entry = lookup(origin);
+		for (V vert : entry.traversed) {
+			vertConsumer.accept(vert);
+		}
+	}
+
+	protected CacheEntry<V> lookup(V origin) {
+		CacheEntry<V> entry = entries.get(origin);
+		if (entry != null) {
+			hits++;
+			return entry;
+		}
+
+		misses++;
+
+		entry = new CacheEntry<>(version);
+		if (source instanceof BFSPathFinder<V> finder) {
+			finder.findPath(origin, entry::add, entry.traversed::add);
+		} else {
+			// A plain PathFinder does not report what its search traversed, so it takes a second traversal.
+			source.eachVertices(origin, entry.traversed::add);
+			source.findPath(origin, entry::add);
+		}
+
+		for (V vert : entry.traversed) {
+			dependents.computeIfAbsent(vert, k -> new HashSet<>()).add(origin);
+		}
+		entries.put(origin, entry);
+
+		return entry;
+	}
+
+	/** A new vertex is not linked to anything yet, so no entry is affected until its edges are notified. */
+	@Override
+	public void vertexAdded(V vert) {
+		version++;
+	}
+
+	@Override
+	public void vertexRemoved(V vert) {
+		version++;
+		invalidateTraversing(vert);
+	}
+
+	@Override
+	public void edgeAdded(V from, V to) {
+		version++;
+		invalidateTraversing(from);
+	}
+
+	@Override
+	public void edgeRemoved(V from, V to) {
+		version++;
+		invalidateTraversing(from);
+	}
+
+	/** Drop all cached entries whose search traversed the given vertex. */
+	public void invalidateTraversing(V vert) {
+		HashSet<V> origins = dependents.remove(vert);
+		if (origins == null) return;
+
+		for (V origin : origins) {
+			invalidate(origin);
+		}
+	}
+
+	/** Drop the cached entry of an origin, if any. */
+	public void invalidate(V origin) {
+		CacheEntry<V> entry = entries.remove(origin);
+		if (entry == null) return;
+
+		invalidations++;
+		for (V vert : entry.traversed) {
+			HashSet<V> origins = dependents.get(vert);
+			if (origins != null && origins.remove(origin) && origins.isEmpty()) {
+				dependents.remove(vert);
+			}
+		}
+	}
+
+	/** Drop all cached entries. */
+	public void invalidateAll() {
+		invalidations += entries.size();
+		entries.clear();
+		dependents.clear();
+	}
+
+	/** @return Whether the results of the origin are currently cached. */
+	public boolean isCached(V origin) {
+		return entries.containsKey(origin);
+	}
+
+	/**
+	 * Get the version of the graph observed by this cache, which is increased by every edit notification.
+	 * Use {@link #entryVersion(Object)} to find out which version a cached result was computed at.
+	 */
+	public long version() {
+		return version;
+	}
+
+	/** @return The graph version at which the entry of the origin was computed, or -1 if it is not cached. */
+	public long entryVersion(V origin) {
+		CacheEntry<V> entry = entries.get(origin);
+		return entry == null ? -1 : entry.version;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public long hits() {
+		return hits;
+	}
+
+	public long misses() {
+		return misses;
+	}
+
+	public long invalidations() {
+		return invalidations;
+	}
+
+	/** @return The ratio of lookups served from the cache, 0 if there has been no lookup. */
+	public float hitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0f : (float) hits / total;
+	}
+
+	public void resetMetrics() {
+		hits = misses = invalidations = 0;
+	}
+
+	/** The cached results of one origin. */
+	protected static class CacheEntry<V> {
+		public final long version;
+
+		public final ArrayList<V> traversed = new ArrayList<>();
+		public final ArrayList<V> destinations = new ArrayList<>();
+		public final ArrayList<IPath<V>> paths = new ArrayList<>();
+
+		public CacheEntry(long version) {
+			this.version = version;
+		}
+
+		public void add(V destination, IPath<V> path) {
+			destinations.add(destination);
+			paths.add(path);
+		}
+	}
+}
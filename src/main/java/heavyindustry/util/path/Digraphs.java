@@ -0,0 +1,252 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Structural analysis of directed graphs: strongly connected components, cycles and topological order. Items put into a
+ * strongly connected component with more than one vertex (or a vertex linked to itself) can circulate forever, while an acyclic
+ * network of one-way machines can be processed in topological order.
+ * <p>All algorithms are iterative and use explicit stacks, so they are safe on arbitrarily long chains. The generic variants
+ * work on the part of a {@link PathFinder} reachable from the given roots, the int variants work on a graph stored in
+ * compressed sparse row form, where the links of vertex {@code i} are {@code links[offsets[i]]} to
+ * {@code links[offsets[i + 1] - 1]}.
+ *
+ * @since 1.0.8
+ */
+public final class Digraphs {
+	private Digraphs() {}
+
+	/**
+	 * Find the strongly connected components reachable from the roots with Tarjan's algorithm.
+	 *
+	 * @return The components in reverse topological order, the components that nothing else is reachable from come first
+	 */
+	public static <V> List<List<V>> stronglyConnectedComponents(PathFinder<V> graph, Iterable<V> roots) {
+		Indexed<V> indexed = index(graph, roots);
+
+		int n = indexed.vertices.size();
+		int[] component = new int[n];
+		int count = components(n, indexed.offsets, indexed.links, component);
+
+		ArrayList<List<V>> out = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			out.add(new ArrayList<>(1));
+		}
+		for (int i = 0; i < n; i++) {
+			out.get(component[i]).add(indexed.vertices.get(i));
+		}
+		return out;
+	}
+
+	/** @return The strongly connected components reachable from the roots that contain a cycle, including self links. */
+	public static <V> List<List<V>> cycles(PathFinder<V> graph, Iterable<V> roots) {
+		Indexed<V> indexed = index(graph, roots);
+
+		int n = indexed.vertices.size();
+		int[] component = new int[n];
+		int count = components(n, indexed.offsets, indexed.links, component);
+		boolean[] cyclic = cyclicComponents(n, indexed.offsets, indexed.links, component, count);
+
+		HashMap<Integer, List<V>> groups = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			if (cyclic[component[i]]) groups.computeIfAbsent(component[i], k -> new ArrayList<>()).add(indexed.vertices.get(i));
+		}
+		return new ArrayList<>(groups.values());
+	}
+
+	/** @return Whether a cycle is reachable from the roots. */
+	public static <V> boolean hasCycle(PathFinder<V> graph, Iterable<V> roots) {
+		Indexed<V> indexed = index(graph, roots);
+		return topologicalOrder(indexed.vertices.size(), indexed.offsets, indexed.links) == null;
+	}
+
+	/**
+	 * Order the vertices reachable from the roots so that every vertex comes before the vertices it links to.
+	 *
+	 * @return The vertices in topological order, or null if the reachable graph contains a cycle
+	 */
+	public static <V> List<V> topologicalOrder(PathFinder<V> graph, Iterable<V> roots) {
+		Indexed<V> indexed = index(graph, roots);
+
+		int[] order = topologicalOrder(indexed.vertices.size(), indexed.offsets, indexed.links);
+		if (order == null) return null;
+
+		ArrayList<V> out = new ArrayList<>(order.length);
+		for (int i : order) {
+			out.add(indexed.vertices.get(i));
+		}
+		return out;
+	}
+
+	/**
+	 * Iterative Tarjan's algorithm over an int indexed graph.
+	 *
+	 * @param n         The number of vertices
+	 * @param component Receives the component id of every vertex, must have at least {@code n} elements
+	 * @return The number of components, the ids are in reverse topological order of the condensed graph
+	 */
+	public static int components(int n, int[] offsets, int[] links, int[] component) {
+		int[] index = new int[n], low = new int[n];
+		Arrays.fill(index, -1);
+		Arrays.fill(component, 0, n, -1);
+
+		int[] stack = new int[n];
+		int[] callVertex = new int[n], callEdge = new int[n];
+		int sp = 0, counter = 0, count = 0;
+
+		for (int root = 0; root < n; root++) {
+			if (index[root] >= 0) continue;
+
+			int csp = 0;
+			index[root] = low[root] = counter++;
+			stack[sp++] = root;
+			callVertex[csp] = root;
+			callEdge[csp++] = offsets[root];
+
+			while (csp > 0) {
+				int v = callVertex[csp - 1];
+				int e = callEdge[csp - 1];
+
+				if (e < offsets[v + 1]) {
+					callEdge[csp - 1]++;
+
+					int w = links[e];
+					if (index[w] < 0) {
+						index[w] = low[w] = counter++;
+						stack[sp++] = w;
+						callVertex[csp] = w;
+						callEdge[csp++] = offsets[w];
+					} else if (component[w] < 0) {
+						// w is still on the stack
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+
+				csp--;
+				if (low[v] == index[v]) {
+					int w;
+					do {
+						w = stack[--sp];
+						component[w] = count;
+					} while (w != v);
+					count++;
+				}
+				if (csp > 0) {
+					int u = callVertex[csp - 1];
+					low[u] = Math.min(low[u], low[v]);
+				}
+			}
+		}
+		return count;
+	}
+
+	/** @return For every component id, whether the component contains a cycle, that is more than one vertex or a self link. */
+	public static boolean[] cyclicComponents(int n, int[] offsets, int[] links, int[] component, int count) {
+		boolean[] cyclic = new boolean[count];
+		int[] sizes = new int[count];
+		for (int i = 0; i < n; i++) {
+			sizes[component[i]]++;
+		}
+		for (int i = 0; i < n; i++) {
+			int c = component[i];
+			if (sizes[c] > 1) {
+				cyclic[c] = true;
+				continue;
+			}
+			for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+				if (links[e] == i) cyclic[c] = true;
+			}
+		}
+		return cyclic;
+	}
+
+	/**
+	 * Kahn's algorithm over an int indexed graph.
+	 *
+	 * @return The vertices in topological order, or null if the graph contains a cycle
+	 */
+	public static int[] topologicalOrder(int n, int[] offsets, int[] links) {
+		int[] degree = new int[n];
+		for (int e = offsets[0]; e < offsets[n]; e++) {
+			degree[links[e]]++;
+		}
+
+		int[] order = new int[n];
+		int head = 0, tail = 0;
+		for (int i = 0; i < n; i++) {
+			if (degree[i] == 0) order[tail++] = i;
+		}
+
+		while (head < tail) {
+			int v = order[head++];
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				if (--degree[links[e]] == 0) order[tail++] = links[e];
+			}
+		}
+		return tail == n ? order : null;
+	}
+
+	/** Copy the part of the graph reachable from the roots into compressed sparse row form. */
+	static <V> Indexed<V> index(PathFinder<V> graph, Iterable<V> roots) {
+		return index(graph, roots, null);
+	}
+
+	/**
+	 * Copy the part of the graph reachable from the roots into compressed sparse row form, the vertices are numbered in breadth
+	 * first order starting with the roots. This is shared by the algorithms of this class and {@link GraphSnapshot}.
+	 *
+	 * @param exclude The vertices to leave out together with their links, can be null
+	 */
+	static <V> Indexed<V> index(PathFinder<V> graph, Iterable<V> roots, Predicate<? super V> exclude) {
+		HashMap<V, Integer> indices = new HashMap<>();
+		ArrayList<V> vertices = new ArrayList<>();
+		for (V root : roots) {
+			if (indices.putIfAbsent(root, vertices.size()) == null) vertices.add(root);
+		}
+
+		int[] offsets = new int[16];
+		int[] links = new int[64];
+		int linkCount = 0;
+
+		for (int i = 0; i < vertices.size(); i++) {
+			if (i + 1 >= offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			offsets[i] = linkCount;
+
+			for (V next : graph.getLinkVertices(vertices.get(i))) {
+				if (exclude != null && exclude.test(next)) continue;
+
+				Integer index = indices.get(next);
+				if (index == null) {
+					index = vertices.size();
+					indices.put(next, index);
+					vertices.add(next);
+				}
+
+				if (linkCount == links.length) links = Arrays.copyOf(links, links.length * 2);
+				links[linkCount++] = index;
+			}
+		}
+		offsets = Arrays.copyOf(offsets, vertices.size() + 1);
+		offsets[vertices.size()] = linkCount;
+
+		return new Indexed<>(vertices, indices, offsets, Arrays.copyOf(links, linkCount));
+	}
+
+	static final class Indexed<V> {
+		final ArrayList<V> vertices;
+		final HashMap<V, Integer> indices;
+		final int[] offsets, links;
+
+		Indexed(ArrayList<V> vertices, HashMap<V, Integer> indices, int[] offsets, int[] links) {
+			this.vertices = vertices;
+			this.indices = indices;
+			this.offsets = offsets;
+			this.links = links;
+		}
+	}
+}
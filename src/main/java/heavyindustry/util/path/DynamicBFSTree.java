@@ -0,0 +1,390 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * A BFS tree from a single source that is kept up to date while the graph is edited, so the shortest paths from the source do
+ * not have to be searched again after every block change. Edits are notified through {@link GraphListener}.
+ * <p>The structure keeps a reverse-link index of the reached vertices. When the tree link of a vertex is deleted, it first
+ * tries to reattach the vertex to another predecessor on the level just above it, in the manner of Even and Shiloach, which
+ * leaves the rest of the tree untouched. Only if no such predecessor exists, the subtree hanging from the vertex is detached
+ * and its levels are recomputed from the links into the intact part of the tree. Insertions only propagate the levels that
+ * decrease.
+ * <p>If the graph is a {@link BFSPathFinder}, its {@link BFSPathFinder#exclude(Object)} and {@link BFSPathFinder#createPath()}
+ * are used. This class is not thread-safe.
+ *
+ * @since 1.0.8
+ */
+public class DynamicBFSTree<V> implements GraphListener<V> {
+	protected static final int UNREACHED = Integer.MAX_VALUE;
+
+	protected final PathFinder<V> graph;
+	protected final V source;
+
+	protected final HashMap<V, Node<V>> nodes = new HashMap<>();
+	protected int reached;
+	/** Whether the tree has been searched, edits notified before that are already seen by the first search. */
+	protected boolean built;
+
+	/**
+	 * Create the tree, which is searched on first use so that the overridable methods are not called during construction.
+	 *
+	 * @param graph  The graph to follow
+	 * @param source The root of the tree
+	 */
+	public DynamicBFSTree(PathFinder<V> graph, V source) {
+		this.graph = graph;
+		this.source = source;
+	}
+
+	/** Discard the tree and search it again from scratch. */
+	public void rebuild() {
+		built = true;
+		nodes.clear();
+		reached = 0;
+
+		Node<V> root = node(source);
+		root.level = 0;
+		reach(source, root);
+
+		propagate(source);
+	}
+
+	/** Propagate decreased levels forward from the given vertex in breadth first order. */
+	protected void propagate(V from) {
+		ArrayDeque<V> queue = new ArrayDeque<>();
+		queue.add(from);
+
+		V vert;
+		while ((vert = queue.poll()) != null) {
+			Node<V> node = nodes.get(vert);
+			for (V next : graph.getLinkVertices(vert)) {
+				if (exclude(next)) continue;
+
+				Node<V> other = link(vert, node, next);
+				if (other.level > node.level + 1) {
+					boolean fresh = other.level == UNREACHED;
+					setParent(next, other, vert);
+					other.level = node.level + 1;
+					if (fresh) reach(next, other);
+					queue.add(next);
+				}
+			}
+		}
+	}
+
+	/** Called when a vertex gets a level, its links are added to the reverse index. */
+	protected void reach(V vert, Node<V> node) {
+		reached++;
+		for (V next : graph.getLinkVertices(vert)) {
+			if (!exclude(next)) link(vert, node, next);
+		}
+	}
+
+	/** Record a link in the index of both vertices. */
+	protected Node<V> link(V from, Node<V> node, V to) {
+		Node<V> other = node(to);
+		other.reverse.add(from);
+		if (node.out == null) node.out = new HashSet<>();
+		node.out.add(to);
+		return other;
+	}
+
+	@Override
+	public void vertexRemoved(V vert) {
+		if (!built) return;
+
+		if (vert.equals(source)) {
+			// Searched again on the next query, the source may have come back by then.
+			nodes.clear();
+			reached = 0;
+			built = false;
+			return;
+		}
+
+		Node<V> node = nodes.remove(vert);
+		if (node == null) return;
+
+		if (node.level != UNREACHED) reached--;
+		if (node.out != null) {
+			for (V next : node.out) {
+				Node<V> other = nodes.get(next);
+				if (other != null) other.reverse.remove(vert);
+			}
+		}
+		for (V prev : node.reverse) {
+			Node<V> other = nodes.get(prev);
+			if (other != null && other.out != null) other.out.remove(vert);
+		}
+		if (node.parent != null) {
+			Node<V> parent = nodes.get(node.parent);
+			if (parent != null && parent.children != null) parent.children.remove(vert);
+		}
+		if (node.children != null && !node.children.isEmpty()) {
+			ArrayList<V> orphans = new ArrayList<>(node.children);
+			for (V child : orphans) {
+				nodes.get(child).parent = null;
+			}
+			detach(orphans);
+		}
+	}
+
+	@Override
+	public void edgeAdded(V from, V to) {
+		if (!built) return;
+
+		Node<V> node = nodes.get(from);
+		if (node == null || node.level == UNREACHED || exclude(to)) return;
+
+		Node<V> other = link(from, node, to);
+		if (other.level > node.level + 1) {
+			boolean fresh = other.level == UNREACHED;
+			setParent(to, other, from);
+			other.level = node.level + 1;
+			if (fresh) reach(to, other);
+			propagate(to);
+		}
+	}
+
+	@Override
+	public void edgeRemoved(V from, V to) {
+		if (!built) return;
+
+		Node<V> node = nodes.get(from), other = nodes.get(to);
+		if (node != null && node.out != null) node.out.remove(to);
+		if (other == null) return;
+
+		other.reverse.remove(from);
+		if (other.parent == null || !other.parent.equals(from)) return;
+
+		setParent(to, other, null);
+		ArrayList<V> orphans = new ArrayList<>(1);
+		orphans.add(to);
+		detach(orphans);
+	}
+
+	/** Repair the levels of vertices that have lost their tree link. */
+	protected void detach(ArrayList<V> orphans) {
+		ArrayList<V> roots = new ArrayList<>();
+		for (V vert : orphans) {
+			if (!reattach(vert, nodes.get(vert))) roots.add(vert);
+		}
+		if (roots.isEmpty()) return;
+
+		// Collect the subtrees that have lost their connection to the source.
+		HashSet<V> affected = new HashSet<>(roots);
+		ArrayDeque<V> stack = new ArrayDeque<>(roots);
+		ArrayList<V> order = new ArrayList<>();
+		while (!stack.isEmpty()) {
+			V vert = stack.pop();
+			order.add(vert);
+
+			Node<V> node = nodes.get(vert);
+			if (node.children != null) {
+				for (V child : node.children) {
+					if (affected.add(child)) stack.push(child);
+				}
+			}
+		}
+
+		for (V vert : order) {
+			Node<V> node = nodes.get(vert);
+			setParent(vert, node, null);
+			node.level = UNREACHED;
+			reached--;
+		}
+
+		// Seed the detached vertices from the intact part of the tree, then relax in order of increasing level.
+		PriorityQueue<Step<V>> queue = new PriorityQueue<>();
+		for (V vert : order) {
+			Node<V> node = nodes.get(vert);
+
+			V best = null;
+			int level = UNREACHED;
+			for (Iterator<V> it = node.reverse.iterator(); it.hasNext(); ) {
+				V prev = it.next();
+				Node<V> other = nodes.get(prev);
+				if (other == null) {
+					it.remove();
+				} else if (other.level < level - 1) {
+					level = other.level + 1;
+					best = prev;
+				}
+			}
+
+			if (best != null) {
+				setParent(vert, node, best);
+				node.level = level;
+				queue.add(new Step<>(vert, level));
+			}
+		}
+
+		Step<V> step;
+		while ((step = queue.poll()) != null) {
+			Node<V> node = nodes.get(step.vert);
+			if (node.level != step.level) continue;
+
+			for (V next : graph.getLinkVertices(step.vert)) {
+				if (!affected.contains(next)) continue;
+
+				Node<V> other = nodes.get(next);
+				if (other.level > node.level + 1) {
+					setParent(next, other, step.vert);
+					other.level = node.level + 1;
+					queue.add(new Step<>(next, other.level));
+				}
+			}
+		}
+
+		for (V vert : order) {
+			if (nodes.get(vert).level != UNREACHED) reached++;
+		}
+	}
+
+	/** Try to attach the vertex to another predecessor on the level above it, the levels below do not change then. */
+	protected boolean reattach(V vert, Node<V> node) {
+		for (Iterator<V> it = node.reverse.iterator(); it.hasNext(); ) {
+			V prev = it.next();
+			Node<V> other = nodes.get(prev);
+			if (other == null) {
+				it.remove();
+			} else if (other.level == node.level - 1) {
+				setParent(vert, node, prev);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected void setParent(V vert, Node<V> node, V parent) {
+		if (node.parent != null) {
+			Node<V> old = nodes.get(node.parent);
+			if (old != null && old.children != null) old.children.remove(vert);
+		}
+
+		node.parent = parent;
+
+		if (parent != null) {
+			Node<V> other = nodes.get(parent);
+			if (other.children == null) other.children = new HashSet<>();
+			other.children.add(vert);
+		}
+	}
+
+	protected Node<V> node(V vert) {
+		return nodes.computeIfAbsent(vert, k -> new Node<>());
+	}
+
+	protected boolean exclude(V vert) {
+		return graph instanceof BFSPathFinder<V> finder && finder.exclude(vert);
+	}
+
+	protected IPath<V> createPath() {
+		return graph instanceof BFSPathFinder<V> finder ? finder.createPath() : new ArrayPath<>();
+	}
+
+	protected void ensureBuilt() {
+		if (!built) rebuild();
+	}
+
+	public V source() {
+		return source;
+	}
+
+	/** @return The number of links between the source and the vertex, or -1 if it is not reachable. */
+	public int distance(V vert) {
+		ensureBuilt();
+
+		Node<V> node = nodes.get(vert);
+		return node == null || node.level == UNREACHED ? -1 : node.level;
+	}
+
+	public boolean isReachable(V vert) {
+		return distance(vert) >= 0;
+	}
+
+	/** @return The vertex before the given one on its shortest path from the source, null for the source or unreachable ones. */
+	public V parent(V vert) {
+		ensureBuilt();
+
+		Node<V> node = nodes.get(vert);
+		return node == null ? null : node.parent;
+	}
+
+	/** @return The number of vertices reachable from the source, including the source. */
+	public int size() {
+		ensureBuilt();
+
+		return reached;
+	}
+
+	/** @return A shortest path from the source to the target, or null if it is not reachable. */
+	public IPath<V> pathTo(V target) {
+		int distance = distance(target);
+		if (distance < 0) return null;
+
+		IPath<V> path = createPath();
+		path.reserve(distance + 1);
+		for (V vert = target; vert != null; vert = parent(vert)) {
+			path.addFirst(vert);
+		}
+		return path;
+	}
+
+	/**
+	 * Pass the current shortest path to every reachable destination of the source to the callback, the same results as
+	 * {@link PathFinder#findPath(Object, PathFindFunc.PathAcceptor)} from the source but without searching. The order of the
+	 * destinations is not specified.
+	 */
+	public void findPath(PathFindFunc.PathAcceptor<V> pathConsumer) {
+		ensureBuilt();
+
+		ArrayList<V> destinations = new ArrayList<>();
+		for (var entry : nodes.entrySet()) {
+			if (entry.getValue().level != UNREACHED && graph.isDestination(source, entry.getKey())) destinations.add(entry.getKey());
+		}
+		for (V destination : destinations) {
+			pathConsumer.accept(destination, pathTo(destination));
+		}
+	}
+
+	/** Pass every reachable vertex to the callback, in no particular order. */
+	public void eachVertices(PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		ensureBuilt();
+
+		for (var entry : nodes.entrySet()) {
+			if (entry.getValue().level != UNREACHED) vertConsumer.accept(entry.getKey());
+		}
+	}
+
+	protected static class Node<V> {
+		public int level = UNREACHED;
+		public V parent;
+		/** The vertices whose tree link comes from this vertex. */
+		public HashSet<V> children;
+		/** The reached vertices linking to this vertex. */
+		public final HashSet<V> reverse = new HashSet<>(4);
+		/** The links of this vertex recorded in the reverse index of other vertices. */
+		public HashSet<V> out;
+	}
+
+	protected static class Step<V> implements Comparable<Step<V>> {
+		public final V vert;
+		public final int level;
+
+		public Step(V vert, int level) {
+			this.vert = vert;
+			this.level = level;
+		}
+
+		@Override
+		public int compareTo(Step<V> o) {
+			return Integer.compare(level, o.level);
+		}
+	}
+}
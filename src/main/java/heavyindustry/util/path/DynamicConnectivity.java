@@ -0,0 +1,553 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fully dynamic connectivity of an undirected graph, which tracks the connected components as edges and vertices are added and
+ * removed, without traversing the graph again after each edit.
+ * <p>The implementation follows the level structure of Holm, de Lichtenberg and Thorup: every edge has a level, the spanning
+ * forest of the edges with level {@code >= i} is stored as Euler tours in randomized balanced trees (one forest per level), and
+ * when a tree edge is removed, the smaller of the two split trees is searched for a replacement edge. Edges that are scanned
+ * without success are promoted to the next level, which bounds the total work. Insertions, deletions and
+ * {@link #connected(Object, Object)} queries cost amortized {@code O(log^2 n)}, {@link #connected(Object, Object)} and
+ * {@link #componentOf(Object)} alone cost {@code O(log n)}.
+ * <p>Connectivity is undirected, but the edits can be reported as directed edges through {@link GraphListener}: the edge is
+ * counted once for each direction, and the two vertices are considered disconnected only after all of them have been removed.
+ * <p>This class is not thread-safe.
+ *
+ * @since 1.0.8
+ */
+public class DynamicConnectivity<V> implements GraphListener<V> {
+	protected final HashMap<V, Vertex<V>> vertices = new HashMap<>();
+
+	protected int components;
+
+	/** Temporary results of {@link #split(Node, int)}. */
+	Node splitLeft, splitRight;
+
+	/** Add a vertex with no edges, which forms its own component. */
+	public boolean addVertex(V vert) {
+		if (vertices.containsKey(vert)) return false;
+
+		vertices.put(vert, new Vertex<>(vert));
+		components++;
+		return true;
+	}
+
+	/** Remove a vertex and all edges linked to it. */
+	public boolean removeVertex(V vert) {
+		Vertex<V> vertex = vertices.get(vert);
+		if (vertex == null) return false;
+
+		for (Edge<V> edge : new ArrayList<>(vertex.adjacent.values())) {
+			edge.multiplicity = 1;
+			removeEdge(edge);
+		}
+
+		vertices.remove(vert);
+		components--;
+		return true;
+	}
+
+	/**
+	 * Add an undirected edge between two vertices, the vertices are added if they do not exist yet. Adding an edge that
+	 * already exists only increases its multiplicity.
+	 *
+	 * @return Whether a new edge was created
+	 */
+	public boolean addEdge(V a, V b) {
+		if (a.equals(b)) return false;
+
+		addVertex(a);
+		addVertex(b);
+
+		Vertex<V> va = vertices.get(a), vb = vertices.get(b);
+		Edge<V> edge = va.adjacent.get(vb);
+		if (edge != null) {
+			edge.multiplicity++;
+			return false;
+		}
+
+		edge = new Edge<>(va, vb);
+		va.adjacent.put(vb, edge);
+		vb.adjacent.put(va, edge);
+
+		if (root(va.node(0)) == root(vb.node(0))) {
+			addNonTree(edge, 0);
+		} else {
+			edge.tree = true;
+			edge.level = 0;
+			link(edge, 0);
+			setTreeMark(edge.arc(0), true);
+			components--;
+		}
+		return true;
+	}
+
+	/**
+	 * Remove an undirected edge between two vertices. If the edge has been added multiple times, only its multiplicity is
+	 * decreased.
+	 *
+	 * @return Whether the edge no longer exists after this call and existed before
+	 */
+	public boolean removeEdge(V a, V b) {
+		Vertex<V> va = vertices.get(a), vb = vertices.get(b);
+		if (va == null || vb == null) return false;
+
+		Edge<V> edge = va.adjacent.get(vb);
+		return edge != null && removeEdge(edge);
+	}
+
+	protected boolean removeEdge(Edge<V> edge) {
+		if (--edge.multiplicity > 0) return false;
+
+		edge.a.adjacent.remove(edge.b);
+		edge.b.adjacent.remove(edge.a);
+
+		if (!edge.tree) {
+			removeNonTree(edge);
+			return true;
+		}
+
+		int level = edge.level;
+		for (int i = level; i >= 0; i--) {
+			cut(edge, i);
+		}
+		edge.tree = false;
+
+		for (int i = level; i >= 0; i--) {
+			if (replace(edge.a, edge.b, i)) return true;
+		}
+
+		components++;
+		return true;
+	}
+
+	/** @return Whether there is a path between the two vertices, false if either does not exist. */
+	public boolean connected(V a, V b) {
+		Vertex<V> va = vertices.get(a), vb = vertices.get(b);
+		return va != null && vb != null && root(va.node(0)) == root(vb.node(0));
+	}
+
+	/**
+	 * Get a representative vertex of the component containing the given vertex. Two vertices are in the same component if and
+	 * only if they have the same representative, but the representative may change after any edit.
+	 *
+	 * @return The representative vertex, or null if the vertex does not exist
+	 */
+	public V componentOf(V vert) {
+		Vertex<V> vertex = vertices.get(vert);
+		if (vertex == null) return null;
+
+		Node t = root(vertex.node(0));
+		while (true) {
+			if (t.left != null && t.left.vertices > 0) {
+				t = t.left;
+			} else if (t.vertex != null) {
+				@SuppressWarnings("unchecked")
+				V value = (V) t.vertex.value;
+				return value;
+			} else {
+				t = t.right;
+			}
+		}
+	}
+
+	/** @return The number of vertices in the component containing the given vertex, 0 if the vertex does not exist. */
+	public int componentSize(V vert) {
+		Vertex<V> vertex = vertices.get(vert);
+		return vertex == null ? 0 : root(vertex.node(0)).vertices;
+	}
+
+	/** @return The number of connected components. */
+	public int componentCount() {
+		return components;
+	}
+
+	public int vertexCount() {
+		return vertices.size();
+	}
+
+	public boolean contains(V vert) {
+		return vertices.containsKey(vert);
+	}
+
+	/**
+	 * Add every vertex reachable from the origin and all edges between them, as reported by the searcher. Each direction of a
+	 * bidirectional link is counted as one edge, which is consistent with notifications received through
+	 * {@link GraphListener}.
+	 */
+	public void addAll(PathFinder<V> finder, V origin) {
+		finder.eachVertices(origin, vert -> {
+			addVertex(vert);
+			for (V next : finder.getLinkVertices(vert)) {
+				addEdge(vert, next);
+			}
+		});
+	}
+
+	public void clear() {
+		vertices.clear();
+		components = 0;
+	}
+
+	@Override
+	public void vertexAdded(V vert) {
+		addVertex(vert);
+	}
+
+	@Override
+	public void vertexRemoved(V vert) {
+		removeVertex(vert);
+	}
+
+	@Override
+	public void edgeAdded(V from, V to) {
+		addEdge(from, to);
+	}
+
+	@Override
+	public void edgeRemoved(V from, V to) {
+		removeEdge(from, to);
+	}
+
+	/** Search the smaller side of a cut tree edge at a level for a replacement edge, promoting edges that are not. */
+	protected boolean replace(Vertex<V> u, Vertex<V> v, int level) {
+		Node ru = root(u.node(level)), rv = root(v.node(level));
+		Node small = ru.vertices <= rv.vertices ? ru : rv;
+
+		// The smaller tree has at most half of the vertices, so its tree edges can move up one level.
+		Node arc;
+		while ((arc = firstMarked(small, true)) != null) {
+			@SuppressWarnings("unchecked")
+			Edge<V> edge = (Edge<V>) arc.edge;
+			setTreeMark(arc, false);
+			edge.level = level + 1;
+			link(edge, level + 1);
+			setTreeMark(edge.arc(level + 1), true);
+		}
+
+		// Every scanned edge is either promoted or becomes the replacement, so each vertex is visited once.
+		Node node;
+		while ((node = firstMarked(small, false)) != null) {
+			@SuppressWarnings("unchecked")
+			Vertex<V> x = (Vertex<V>) node.vertex;
+
+			for (Edge<V> edge : new ArrayList<>(x.nonTree(level))) {
+				Vertex<V> y = edge.a == x ? edge.b : edge.a;
+				removeNonTree(edge);
+
+				if (root(y.node(level)) == small) {
+					addNonTree(edge, level + 1);
+				} else {
+					edge.tree = true;
+					for (int i = 0; i <= level; i++) {
+						link(edge, i);
+					}
+					setTreeMark(edge.arc(level), true);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	protected void addNonTree(Edge<V> edge, int level) {
+		edge.tree = false;
+		edge.level = level;
+		edge.a.nonTreeOrCreate(level).add(edge);
+		edge.b.nonTreeOrCreate(level).add(edge);
+		updateNonTreeMark(edge.a, level);
+		updateNonTreeMark(edge.b, level);
+	}
+
+	protected void removeNonTree(Edge<V> edge) {
+		int level = edge.level;
+		edge.a.nonTree(level).remove(edge);
+		edge.b.nonTree(level).remove(edge);
+		updateNonTreeMark(edge.a, level);
+		updateNonTreeMark(edge.b, level);
+	}
+
+	protected void updateNonTreeMark(Vertex<V> vertex, int level) {
+		HashSet<Edge<V>> edges = vertex.nonTree(level);
+		boolean has = edges != null && !edges.isEmpty();
+
+		Node node = vertex.node(level);
+		if (node.nonTreeMark != has) {
+			node.nonTreeMark = has;
+			refresh(node);
+		}
+	}
+
+	protected void setTreeMark(Node arc, boolean mark) {
+		if (arc.treeMark != mark) {
+			arc.treeMark = mark;
+			refresh(arc);
+		}
+	}
+
+	/** Join the Euler tours of the two endpoints of an edge in the forest of a level. */
+	protected void link(Edge<V> edge, int level) {
+		Node ru = reroot(edge.a.node(level));
+		Node rv = reroot(edge.b.node(level));
+
+		Node ab = new Node(null, edge), ba = new Node(null, edge);
+		edge.setArcs(level, ab, ba);
+
+		Node tour = merge(merge(merge(ru, ab), rv), ba);
+		tour.parent = null;
+	}
+
+	/** Split the Euler tour containing an edge in the forest of a level into the tours of its two endpoints. */
+	protected void cut(Edge<V> edge, int level) {
+		Node first = edge.arc(level), second = edge.reverseArc(level);
+		edge.setArcs(level, null, null);
+
+		Node root = root(first);
+		int p1 = index(first), p2 = index(second);
+		if (p1 > p2) {
+			int tmp = p1;
+			p1 = p2;
+			p2 = tmp;
+		}
+
+		split(root, p1);
+		Node a = splitLeft, rest = splitRight;
+		split(rest, 1);
+		rest = splitRight;
+		split(rest, p2 - p1 - 1);
+		Node b = splitLeft;
+		rest = splitRight;
+		split(rest, 1);
+		Node c = splitRight;
+
+		if (b != null) b.parent = null;
+		Node joined = merge(a, c);
+		if (joined != null) joined.parent = null;
+	}
+
+	/** Rotate the Euler tour containing the node so that it starts with the node. */
+	protected Node reroot(Node node) {
+		Node root = root(node);
+		split(root, index(node));
+		Node tour = merge(splitRight, splitLeft);
+		tour.parent = null;
+		return tour;
+	}
+
+	/** Find the first node in the subtree that has a tree mark or a non tree mark, null if there is none. */
+	protected static Node firstMarked(Node root, boolean tree) {
+		Node t = root;
+		if ((tree ? t.treeMarks : t.nonTreeMarks) == 0) return null;
+
+		while (true) {
+			if (t.left != null && (tree ? t.left.treeMarks : t.left.nonTreeMarks) > 0) {
+				t = t.left;
+			} else if (tree ? t.treeMark : t.nonTreeMark) {
+				return t;
+			} else {
+				t = t.right;
+			}
+		}
+	}
+
+	static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	static Node root(Node node) {
+		while (node.parent != null) {
+			node = node.parent;
+		}
+		return node;
+	}
+
+	static int index(Node node) {
+		int index = size(node.left);
+		while (node.parent != null) {
+			if (node == node.parent.right) {
+				index += size(node.parent.left) + 1;
+			}
+			node = node.parent;
+		}
+		return index;
+	}
+
+	static void refresh(Node node) {
+		while (node != null) {
+			node.update();
+			node = node.parent;
+		}
+	}
+
+	static Node merge(Node a, Node b) {
+		if (a == null) return b;
+		if (b == null) return a;
+
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			a.right.parent = a;
+			a.update();
+			return a;
+		} else {
+			b.left = merge(a, b.left);
+			b.left.parent = b;
+			b.update();
+			return b;
+		}
+	}
+
+	/** Split the tree so that the first {@code k} nodes are in {@link #splitLeft}, and the rest in {@link #splitRight}. */
+	void split(Node root, int k) {
+		splitNode(root, k);
+		if (splitLeft != null) splitLeft.parent = null;
+		if (splitRight != null) splitRight.parent = null;
+	}
+
+	private void splitNode(Node t, int k) {
+		if (t == null) {
+			splitLeft = splitRight = null;
+			return;
+		}
+
+		if (size(t.left) >= k) {
+			splitNode(t.left, k);
+			t.left = splitRight;
+			if (splitRight != null) splitRight.parent = t;
+			t.update();
+			splitRight = t;
+		} else {
+			splitNode(t.right, k - size(t.left) - 1);
+			t.right = splitLeft;
+			if (splitLeft != null) splitLeft.parent = t;
+			t.update();
+			splitLeft = t;
+		}
+	}
+
+	protected static class Vertex<V> {
+		public final V value;
+		public final HashMap<Vertex<V>, Edge<V>> adjacent = new HashMap<>();
+
+		/** The occurrence of this vertex in the Euler tour of each level. */
+		Node[] nodes = new Node[1];
+		HashSet<Edge<V>>[] nonTree;
+
+		public Vertex(V value) {
+			this.value = value;
+			nodes[0] = new Node(this, null);
+		}
+
+		Node node(int level) {
+			if (level >= nodes.length) {
+				nodes = Arrays.copyOf(nodes, level + 1);
+			}
+			Node node = nodes[level];
+			if (node == null) {
+				nodes[level] = node = new Node(this, null);
+			}
+			return node;
+		}
+
+		HashSet<Edge<V>> nonTree(int level) {
+			return nonTree == null || level >= nonTree.length ? null : nonTree[level];
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		HashSet<Edge<V>> nonTreeOrCreate(int level) {
+			if (nonTree == null) {
+				nonTree = new HashSet[level + 1];
+			} else if (level >= nonTree.length) {
+				nonTree = Arrays.copyOf(nonTree, level + 1);
+			}
+			HashSet<Edge<V>> edges = nonTree[level];
+			if (edges == null) {
+				nonTree[level] = edges = new HashSet<>();
+			}
+			return edges;
+		}
+	}
+
+	protected static class Edge<V> {
+		public final Vertex<V> a, b;
+
+		public int level;
+		public boolean tree;
+		public int multiplicity = 1;
+
+		/** The two directed occurrences of this edge in the Euler tour of each level it is a tree edge of. */
+		Node[] arcs = new Node[2];
+
+		public Edge(Vertex<V> a, Vertex<V> b) {
+			this.a = a;
+			this.b = b;
+		}
+
+		Node arc(int level) {
+			return arcs[level << 1];
+		}
+
+		Node reverseArc(int level) {
+			return arcs[(level << 1) + 1];
+		}
+
+		void setArcs(int level, Node arc, Node reverse) {
+			if ((level << 1) + 1 >= arcs.length) {
+				arcs = Arrays.copyOf(arcs, (level + 1) << 1);
+			}
+			arcs[level << 1] = arc;
+			arcs[(level << 1) + 1] = reverse;
+		}
+	}
+
+	/** A node of the randomized balanced tree storing an Euler tour, either a vertex occurrence or a directed edge. */
+	protected static final class Node {
+		final Vertex<?> vertex;
+		final Edge<?> edge;
+		final int priority = ThreadLocalRandom.current().nextInt();
+
+		Node left, right, parent;
+
+		int size = 1;
+		/** The number of vertex occurrences in the subtree. */
+		int vertices;
+		/** The number of marked nodes in the subtree. */
+		int treeMarks, nonTreeMarks;
+
+		/** Set on one arc of each tree edge whose level equals the level of this forest. */
+		boolean treeMark;
+		/** Set on vertex occurrences that have non tree edges at the level of this forest. */
+		boolean nonTreeMark;
+
+		Node(Vertex<?> vertex, Edge<?> edge) {
+			this.vertex = vertex;
+			this.edge = edge;
+			vertices = vertex == null ? 0 : 1;
+		}
+
+		void update() {
+			size = 1;
+			vertices = vertex == null ? 0 : 1;
+			treeMarks = treeMark ? 1 : 0;
+			nonTreeMarks = nonTreeMark ? 1 : 0;
+
+			if (left != null) {
+				size += left.size;
+				vertices += left.vertices;
+				treeMarks += left.treeMarks;
+				nonTreeMarks += left.nonTreeMarks;
+			}
+			if (right != null) {
+				size += right.size;
+				vertices += right.vertices;
+				treeMarks += right.treeMarks;
+				nonTreeMarks += right.nonTreeMarks;
+			}
+		}
+	}
+}
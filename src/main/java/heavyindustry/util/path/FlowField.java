@@ -0,0 +1,297 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+/**
+ * Multi source distance field over a graph. Instead of every agent searching its own path to the nearest destination, the
+ * field is computed once from all destinations at the same time (a Dijkstra search over the reversed links), and stores for
+ * each reached vertex its distance to the nearest destination and the next vertex to move to. Routing an agent is then a
+ * constant time lookup per step through {@link #nextHop(Object)}.
+ * <p>The field can be kept up to date incrementally through {@link GraphListener}: added links only relax the vertices whose
+ * distance decreases, and removed links or vertices only recompute the part of the field that was routed through them.
+ * <p>By default the links are assumed to be bidirectional and every link costs 1, override
+ * {@link #getReverseLinkVertices(Object)} for directed graphs and {@link #linkCost(Object, Object)} for weighted ones.
+ * <p>This class is not thread-safe.
+ *
+ * @since 1.0.8
+ */
+public class FlowField<V> implements GraphListener<V> {
+	protected final PathFinder<V> graph;
+
+	protected final HashMap<V, Cell<V>> cells = new HashMap<>();
+	protected final HashSet<V> sources = new HashSet<>();
+
+	protected final PriorityQueue<Step<V>> queue = new PriorityQueue<>();
+
+	/** @param graph The graph whose links are followed by the agents */
+	public FlowField(PathFinder<V> graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Get the vertices linked to the given vertex, the reverse of {@link PathFinder#getLinkVertices(Object)}. The default
+	 * implementation assumes that all links are bidirectional.
+	 */
+	protected Iterable<V> getReverseLinkVertices(V vert) {
+		return graph.getLinkVertices(vert);
+	}
+
+	/** The cost of moving from a vertex to a linked vertex, must be positive. Returns 1 by default. */
+	protected int linkCost(V from, V to) {
+		return 1;
+	}
+
+	/** Recompute the whole field from the given destinations. */
+	public void build(Iterable<V> destinations) {
+		cells.clear();
+		sources.clear();
+		queue.clear();
+
+		for (V vert : destinations) {
+			if (sources.add(vert)) {
+				Cell<V> cell = cell(vert);
+				cell.distance = 0;
+				cell.target = vert;
+				queue.add(new Step<>(vert, 0));
+			}
+		}
+		propagate();
+	}
+
+	/** Recompute the whole field, using every vertex reachable from the origin that is a destination of it as a source. */
+	public void buildFromDestinations(V origin) {
+		ArrayList<V> destinations = new ArrayList<>();
+		graph.eachVertices(origin, vert -> {
+			if (graph.isDestination(origin, vert)) destinations.add(vert);
+		});
+		build(destinations);
+	}
+
+	/** @return The distance from the vertex to the nearest destination, or -1 if no destination is reachable. */
+	public int distance(V vert) {
+		Cell<V> cell = cells.get(vert);
+		return cell == null || cell.distance == Integer.MAX_VALUE ? -1 : cell.distance;
+	}
+
+	/** @return The vertex to move to from the given vertex, or null if it is a destination or no destination is reachable. */
+	public V nextHop(V vert) {
+		Cell<V> cell = cells.get(vert);
+		return cell == null ? null : cell.next;
+	}
+
+	/** @return The destination the vertex is routed to, or null if no destination is reachable. */
+	public V destinationOf(V vert) {
+		Cell<V> cell = cells.get(vert);
+		return cell == null || cell.distance == Integer.MAX_VALUE ? null : cell.target;
+	}
+
+	public boolean isReachable(V vert) {
+		return distance(vert) >= 0;
+	}
+
+	/**
+	 * Build the full path from the vertex to its nearest destination by following the next hops.
+	 *
+	 * @return The path, or null if no destination is reachable
+	 */
+	public IPath<V> path(V from) {
+		if (!isReachable(from)) return null;
+
+		IPath<V> path = createPath();
+		for (V vert = from; vert != null; vert = nextHop(vert)) {
+			path.addLast(vert);
+		}
+		return path;
+	}
+
+	/** Pass the path from the vertex to its nearest destination to the callback, does nothing if none is reachable. */
+	public void route(V from, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		IPath<V> path = path(from);
+		if (path != null) pathConsumer.accept(path.destination(), path);
+	}
+
+	/** Create an empty path object for {@link #path(Object)}. */
+	protected IPath<V> createPath() {
+		return new ArrayPath<>();
+	}
+
+	public boolean isSource(V vert) {
+		return sources.contains(vert);
+	}
+
+	/** Add a destination and update the vertices that are now closer to it than to any other destination. */
+	public void addSource(V vert) {
+		if (!sources.add(vert)) return;
+
+		Cell<V> cell = cell(vert);
+		setNext(vert, cell, null);
+		cell.distance = 0;
+		cell.target = vert;
+		queue.add(new Step<>(vert, 0));
+		propagate();
+	}
+
+	/** Remove a destination and reroute the vertices that were routed to it. */
+	public void removeSource(V vert) {
+		if (!sources.remove(vert)) return;
+
+		ArrayList<V> roots = new ArrayList<>();
+		roots.add(vert);
+		repair(roots);
+	}
+
+	@Override
+	public void vertexRemoved(V vert) {
+		sources.remove(vert);
+
+		Cell<V> cell = cells.remove(vert);
+		if (cell == null) return;
+
+		if (cell.next != null) {
+			Cell<V> parent = cells.get(cell.next);
+			if (parent != null && parent.children != null) parent.children.remove(vert);
+		}
+		if (cell.children != null) {
+			ArrayList<V> roots = new ArrayList<>(cell.children);
+			for (V child : roots) {
+				cells.get(child).next = null;
+			}
+			repair(roots);
+		}
+	}
+
+	@Override
+	public void edgeAdded(V from, V to) {
+		Cell<V> target = cells.get(to);
+		if (target == null || target.distance == Integer.MAX_VALUE) return;
+
+		relax(from, to, target.distance);
+		propagate();
+	}
+
+	@Override
+	public void edgeRemoved(V from, V to) {
+		Cell<V> cell = cells.get(from);
+		if (cell == null || cell.next == null || !cell.next.equals(to)) return;
+
+		ArrayList<V> roots = new ArrayList<>();
+		roots.add(from);
+		repair(roots);
+	}
+
+	/** Recompute the distances of the given vertices and of every vertex that was routed through them. */
+	protected void repair(ArrayList<V> roots) {
+		ArrayList<V> affected = new ArrayList<>();
+		HashSet<V> marked = new HashSet<>(roots);
+		ArrayDeque<V> stack = new ArrayDeque<>(roots);
+
+		while (!stack.isEmpty()) {
+			V vert = stack.pop();
+			affected.add(vert);
+
+			Cell<V> cell = cells.get(vert);
+			if (cell.children != null) {
+				for (V child : cell.children) {
+					if (marked.add(child)) stack.push(child);
+				}
+			}
+		}
+
+		for (V vert : affected) {
+			Cell<V> cell = cells.get(vert);
+			setNext(vert, cell, null);
+			cell.distance = Integer.MAX_VALUE;
+			cell.target = null;
+		}
+
+		// Seed the affected vertices from their links to the intact part of the field.
+		for (V vert : affected) {
+			Cell<V> cell = cells.get(vert);
+			if (sources.contains(vert)) {
+				cell.distance = 0;
+				cell.target = vert;
+				queue.add(new Step<>(vert, 0));
+				continue;
+			}
+
+			for (V next : graph.getLinkVertices(vert)) {
+				Cell<V> other = cells.get(next);
+				if (other != null && other.distance != Integer.MAX_VALUE && !marked.contains(next)) {
+					relax(vert, next, other.distance);
+				}
+			}
+		}
+
+		propagate();
+	}
+
+	/** Try to route {@code from} through {@code to}, whose distance is given. */
+	protected void relax(V from, V to, int distance) {
+		int cost = distance + linkCost(from, to);
+
+		Cell<V> cell = cell(from);
+		if (cost >= cell.distance) return;
+
+		setNext(from, cell, to);
+		cell.distance = cost;
+		cell.target = cells.get(to).target;
+		queue.add(new Step<>(from, cost));
+	}
+
+	protected void propagate() {
+		Step<V> step;
+		while ((step = queue.poll()) != null) {
+			Cell<V> cell = cells.get(step.vert);
+			if (cell == null || step.distance != cell.distance) continue;
+
+			for (V prev : getReverseLinkVertices(step.vert)) {
+				relax(prev, step.vert, cell.distance);
+			}
+		}
+	}
+
+	protected void setNext(V vert, Cell<V> cell, V next) {
+		if (cell.next != null) {
+			Cell<V> parent = cells.get(cell.next);
+			if (parent != null && parent.children != null) parent.children.remove(vert);
+		}
+
+		cell.next = next;
+
+		if (next != null) {
+			Cell<V> parent = cells.get(next);
+			if (parent.children == null) parent.children = new HashSet<>();
+			parent.children.add(vert);
+		}
+	}
+
+	protected Cell<V> cell(V vert) {
+		return cells.computeIfAbsent(vert, k -> new Cell<>());
+	}
+
+	protected static class Cell<V> {
+		public int distance = Integer.MAX_VALUE;
+		public V next, target;
+		/** The vertices whose next hop is this vertex. */
+		public HashSet<V> children;
+	}
+
+	protected static class Step<V> implements Comparable<Step<V>> {
+		public final V vert;
+		public final int distance;
+
+		public Step(V vert, int distance) {
+			this.vert = vert;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(Step<V> o) {
+			return Integer.compare(distance, o.distance);
+		}
+	}
+}
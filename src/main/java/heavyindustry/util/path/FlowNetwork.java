@@ -0,0 +1,28 @@
+package heavyindustry.util.path;
+
+/**
+ * A directed graph whose links carry a capacity, for example the number of items or mB of fluid a pipe can move per tick.
+ * The links are provided in the same way as {@link PathFinder#getLinkVertices(Object)}, two vertices that can transfer in both
+ * directions should list each other.
+ *
+ * @see MaxFlowSolver
+ * @since 1.0.8
+ */
+public interface FlowNetwork<V> {
+	/**
+	 * Retrieve the vertices that the given vertex can transfer to.
+	 *
+	 * @param curr The vertex currently obtaining its links
+	 * @return All vertices linked from the current vertex
+	 */
+	Iterable<V> getLinkVertices(V curr);
+
+	/**
+	 * Get the capacity of a link, the maximum amount that can be moved from one vertex to the other per unit of time.
+	 *
+	 * @param from The vertex where the link starts
+	 * @param to   The vertex where the link points to
+	 * @return The capacity of the link, must not be negative
+	 */
+	long getCapacity(V from, V to);
+}
@@ -0,0 +1,80 @@
+package heavyindustry.util.path;
+
+import heavyindustry.util.AtomicBitSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Expands a range of a BFS frontier, used by {@link ParallelBFSPathFinder}. Every leaf task writes the vertices it discovers
+ * into its own slot of a shared array, and the slots are concatenated in order after the whole level has been expanded.
+ */
+final class FrontierTask<V> extends RecursiveAction {
+	private static final long serialVersionUID = -3391874417043512275l;
+
+	final transient ParallelBFSPathFinder<V> finder;
+	final transient List<V> frontier;
+	final transient AtomicBitSet visited;
+	final transient ArrayList<V>[] parts;
+	final int grain;
+	final int from, to;
+
+	FrontierTask(ParallelBFSPathFinder<V> finder, List<V> frontier, AtomicBitSet visited, ArrayList<V>[] parts, int grain, int from, int to) {
+		this.finder = finder;
+		this.frontier = frontier;
+		this.visited = visited;
+		this.parts = parts;
+		this.grain = grain;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		int chunks = to - from;
+		if (chunks == 1) {
+			int start = from * grain;
+			parts[from] = expand(finder, frontier, start, Math.min(start + grain, frontier.size()), visited);
+		} else {
+			int mid = (from + to) >>> 1;
+			invokeAll(new FrontierTask<>(finder, frontier, visited, parts, grain, from, mid),
+					new FrontierTask<>(finder, frontier, visited, parts, grain, mid, to));
+		}
+	}
+
+	/** Expand the vertices in range {@code [start, end)} of the frontier on the current thread. */
+	static <V> ArrayList<V> expand(ParallelBFSPathFinder<V> finder, List<V> frontier, int start, int end, AtomicBitSet visited) {
+		ArrayList<V> next = new ArrayList<>();
+		for (int i = start; i < end; i++) {
+			for (V vert : finder.getLinkVertices(frontier.get(i))) {
+				if (!finder.exclude(vert) && visited.set(finder.vertexIndex(vert))) {
+					next.add(vert);
+				}
+			}
+		}
+		return next;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <V> ArrayList<V> expandParallel(ParallelBFSPathFinder<V> finder, ForkJoinPool pool, List<V> frontier, AtomicBitSet visited) {
+		int size = frontier.size();
+		int grain = Math.max(64, size / (pool.getParallelism() << 2));
+		int chunks = (size + grain - 1) / grain;
+
+		ArrayList<V>[] parts = new ArrayList[chunks];
+		pool.invoke(new FrontierTask<>(finder, frontier, visited, parts, grain, 0, chunks));
+
+		int total = 0;
+		for (ArrayList<V> part : parts) {
+			total += part.size();
+		}
+
+		ArrayList<V> next = new ArrayList<>(total);
+		for (ArrayList<V> part : parts) {
+			next.addAll(part);
+		}
+		return next;
+	}
+}
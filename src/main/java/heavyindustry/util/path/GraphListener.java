@@ -0,0 +1,42 @@
+package heavyindustry.util.path;
+
+/**
+ * Receiver of graph edit notifications. Structures that cache search results or maintain derived data about a graph implement
+ * this interface, and the owner of the graph should call the corresponding method after every edit, for example when a block
+ * is placed or broken.
+ * <p>Edges are directed, the same as in {@link PathFinder#getLinkVertices(Object)}. If two vertices are linked in both
+ * directions, both edges should be notified. All methods do nothing by default.
+ *
+ * @since 1.0.8
+ */
+public interface GraphListener<V> {
+	/**
+	 * Called after a vertex has been added to the graph.
+	 *
+	 * @param vert The added vertex
+	 */
+	default void vertexAdded(V vert) {}
+
+	/**
+	 * Called after a vertex and all its edges have been removed from the graph.
+	 *
+	 * @param vert The removed vertex
+	 */
+	default void vertexRemoved(V vert) {}
+
+	/**
+	 * Called after a directed edge has been added to the graph.
+	 *
+	 * @param from The vertex where the edge starts
+	 * @param to   The vertex where the edge points to
+	 */
+	default void edgeAdded(V from, V to) {}
+
+	/**
+	 * Called after a directed edge has been removed from the graph.
+	 *
+	 * @param from The vertex where the edge starts
+	 * @param to   The vertex where the edge points to
+	 */
+	default void edgeRemoved(V from, V to) {}
+}
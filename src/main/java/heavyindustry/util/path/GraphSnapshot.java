@@ -0,0 +1,175 @@
+package heavyindustry.util.path;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * An immutable copy of a graph, with the links stored in compressed sparse row arrays. A snapshot is captured on the thread that
+ * owns the graph and can then be searched from any number of threads at the same time, which makes it the input of
+ * {@link PathfindingService}.
+ * <p>Only the vertices reachable from the given roots are captured. The destinations are decided by a predicate that is called
+ * from the searching threads, it defaults to {@link PathFinder#isDestination(Object, Object)} of the captured graph, which must
+ * then be safe to call concurrently and must not depend on mutable state.
+ *
+ * @since 1.0.8
+ */
+public final class GraphSnapshot<V> implements IndexedPathFinder<V> {
+	private final Object[] vertices;
+	private final HashMap<V, Integer> indices;
+	/** The links of the vertex {@code i} are {@code links[offsets[i]]} to {@code links[offsets[i + 1] - 1]}. */
+	private final int[] offsets, links;
+	private final BiPredicate<? super V, ? super V> destination;
+
+	private GraphSnapshot(Object[] vertices, HashMap<V, Integer> indices, int[] offsets, int[] links, BiPredicate<? super V, ? super V> destination) {
+		this.vertices = vertices;
+		this.indices = indices;
+		this.offsets = offsets;
+		this.links = links;
+		this.destination = destination;
+	}
+
+	/** Capture the part of the graph reachable from the roots, using the destinations of the graph itself. */
+	@SafeVarargs
+	public static <V> GraphSnapshot<V> capture(PathFinder<V> graph, V... roots) {
+		return capture(graph, graph::isDestination, List.of(roots));
+	}
+
+	/**
+	 * Capture the part of the graph reachable from the roots.
+	 *
+	 * @param graph       The graph to copy, {@link BFSPathFinder#exclude(Object)} is respected if it is a BFS searcher
+	 * @param destination Decides whether a vertex is a destination of an origin, called concurrently by the searches
+	 * @param roots       The vertices from which the copied part of the graph is reachable
+	 */
+	public static <V> GraphSnapshot<V> capture(PathFinder<V> graph, BiPredicate<? super V, ? super V> destination, Iterable<V> roots) {
+		Digraphs.Indexed<V> indexed = Digraphs.index(graph, roots, graph instanceof BFSPathFinder<V> finder ? finder::exclude : null);
+
+		return new GraphSnapshot<>(indexed.vertices.toArray(), indexed.indices, indexed.offsets, indexed.links, destination);
+	}
+
+	@Override
+	public Iterable<V> getLinkVertices(V curr) {
+		Integer index = indices.get(curr);
+		if (index == null) return List.of();
+
+		int from = offsets[index], to = offsets[index + 1];
+		return new AbstractList<>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public V get(int i) {
+				return (V) vertices[links[from + i]];
+			}
+
+			@Override
+			public int size() {
+				return to - from;
+			}
+		};
+	}
+
+	@Override
+	public boolean isDestination(V origin, V vert) {
+		return destination.test(origin, vert);
+	}
+
+	/** Breadth first search over the link arrays, the search state is local to the call so searches may run concurrently. */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void findPath(V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		Integer start = indices.get(origin);
+		if (start == null) return;
+
+		int n = vertices.length;
+		// previous[i] holds the index of the predecessor plus 1, 0 means not yet visited.
+		int[] previous = new int[n];
+		int[] depth = new int[n];
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+
+		queue[tail++] = start;
+		previous[start] = start + 1;
+
+		while (head < tail) {
+			int curr = queue[head++];
+			for (int l = offsets[curr], end = offsets[curr + 1]; l < end; l++) {
+				int next = links[l];
+				if (previous[next] == 0) {
+					previous[next] = curr + 1;
+					depth[next] = depth[curr] + 1;
+					queue[tail++] = next;
+				}
+			}
+
+			V vert = (V) vertices[curr];
+			if (destination.test(origin, vert)) {
+				ArrayPath<V> path = new ArrayPath<>();
+				path.reserve(depth[curr] + 1);
+
+				int i = curr;
+				while (true) {
+					path.addFirst((V) vertices[i]);
+					if (i == start) break;
+					i = previous[i] - 1;
+				}
+				pathConsumer.accept(vert, path);
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void eachVertices(V origin, PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		Integer start = indices.get(origin);
+		if (start == null) return;
+
+		boolean[] visited = new boolean[vertices.length];
+		int[] queue = new int[vertices.length];
+		int head = 0, tail = 0;
+
+		queue[tail++] = start;
+		visited[start] = true;
+
+		while (head < tail) {
+			int curr = queue[head++];
+			for (int l = offsets[curr], end = offsets[curr + 1]; l < end; l++) {
+				int next = links[l];
+				if (!visited[next]) {
+					visited[next] = true;
+					queue[tail++] = next;
+				}
+			}
+			vertConsumer.accept((V) vertices[curr]);
+		}
+	}
+
+	/** @return The index of the vertex in this snapshot, or -1 if it was not captured. */
+	@Override
+	public int vertexIndex(V vert) {
+		Integer index = indices.get(vert);
+		return index == null ? -1 : index;
+	}
+
+	@Override
+	public int vertexCapacity() {
+		return vertices.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V vertex(int index) {
+		return (V) vertices[index];
+	}
+
+	public boolean contains(V vert) {
+		return indices.containsKey(vert);
+	}
+
+	public int vertexCount() {
+		return vertices.length;
+	}
+
+	public int linkCount() {
+		return links.length;
+	}
+}
@@ -0,0 +1,206 @@
+package heavyindustry.util.path;
+
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * The state of one Jump Point Search of a {@link GridPathFinder}.
+ * <p>Directions are numbered {@code +x, -x, +y, -y, +z, -z}, so the axis of a direction is {@code dir >> 1}. A straight scan
+ * along x stops at forced neighbors in y and z, a scan along y checks the x scans branching from every cell and stops at
+ * forced neighbors in z, and a scan along z checks the y and x scans branching from every cell.
+ */
+final class GridJumpSearch<V> {
+	static final int[] dx = {1, -1, 0, 0, 0, 0};
+	static final int[] dy = {0, 0, 1, -1, 0, 0};
+	static final int[] dz = {0, 0, 0, 0, 1, -1};
+
+	static final int AXIS_X = 0, AXIS_Y = 1, AXIS_Z = 2;
+
+	final GridPathFinder<V> grid;
+	final V origin;
+	/** The single target of a guided search, null to search all destinations. */
+	final V target;
+	final int tx, ty, tz;
+
+	final HashMap<Long, Node> nodes = new HashMap<>();
+	final PriorityQueue<Node> open = new PriorityQueue<>();
+
+	/** The coordinates of the last jump point found by {@link #jump(int, int, int, int)}. */
+	int jx, jy, jz;
+
+	GridJumpSearch(GridPathFinder<V> grid, V origin, V target) {
+		this.grid = grid;
+		this.origin = origin;
+		this.target = target;
+
+		if (target != null) {
+			tx = grid.x(target);
+			ty = grid.y(target);
+			tz = grid.z(target);
+		} else {
+			tx = ty = tz = 0;
+		}
+	}
+
+	/** Pack the coordinates in the same layout as {@code BlockPos.asLong()}. */
+	static long pack(int x, int y, int z) {
+		return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+	}
+
+	void search(PathFindFunc.PathAcceptor<V> pathConsumer) {
+		int ox = grid.x(origin), oy = grid.y(origin), oz = grid.z(origin);
+
+		Node start = new Node(ox, oy, oz, 0, null, -1);
+		start.f = heuristic(ox, oy, oz);
+		nodes.put(pack(ox, oy, oz), start);
+		open.add(start);
+
+		Node node;
+		while ((node = open.poll()) != null) {
+			if (node.closed) continue;
+			node.closed = true;
+
+			if (isGoal(node.x, node.y, node.z)) {
+				pathConsumer.accept(grid.vertexAt(node.x, node.y, node.z), trace(node));
+				if (target != null) return;
+			}
+
+			for (int dir = 0; dir < 6; dir++) {
+				if (!isSuccessor(node, dir)) continue;
+				if (!jump(node.x, node.y, node.z, dir)) continue;
+
+				int g = node.g + Math.abs(jx - node.x) + Math.abs(jy - node.y) + Math.abs(jz - node.z);
+				long key = pack(jx, jy, jz);
+
+				Node next = nodes.get(key);
+				if (next == null) {
+					next = new Node(jx, jy, jz, g, node, dir);
+					nodes.put(key, next);
+				} else if (next.closed || g >= next.g) {
+					continue;
+				} else {
+					// The previous queue entry becomes outdated, replace the node so that it is skipped when polled.
+					next.closed = true;
+					next = new Node(jx, jy, jz, g, node, dir);
+					nodes.put(key, next);
+				}
+				next.f = g + heuristic(jx, jy, jz);
+				open.add(next);
+			}
+		}
+	}
+
+	boolean isGoal(int x, int y, int z) {
+		return target != null ? x == tx && y == ty && z == tz : grid.isDestination(origin, x, y, z);
+	}
+
+	int heuristic(int x, int y, int z) {
+		return target == null ? 0 : Math.abs(tx - x) + Math.abs(ty - y) + Math.abs(tz - z);
+	}
+
+	/** Decide whether the direction has to be scanned from a jump point reached by moving along {@code node.dir}. */
+	boolean isSuccessor(Node node, int dir) {
+		int from = node.dir;
+		if (from < 0) return true;
+		if (dir == (from ^ 1)) return false;
+		if (dir == from) return true;
+
+		int axis = dir >> 1, fromAxis = from >> 1;
+		// Turning to an axis that comes later in the canonical order is always allowed, turning back to an earlier axis
+		// is only needed when the cell behind the move blocks the canonical path.
+		if (axis < fromAxis) return true;
+
+		int x = node.x, y = node.y, z = node.z;
+		return !grid.isPassable(x - dx[from] + dx[dir], y - dy[from] + dy[dir], z - dz[from] + dz[dir])
+				&& grid.isPassable(x + dx[dir], y + dy[dir], z + dz[dir]);
+	}
+
+	/**
+	 * Scan from the cell along the direction until a jump point is found, which is stored in {@link #jx}, {@link #jy} and
+	 * {@link #jz}.
+	 *
+	 * @return Whether a jump point was found before running into an obstacle
+	 */
+	boolean jump(int x, int y, int z, int dir) {
+		int sx = dx[dir], sy = dy[dir], sz = dz[dir];
+		int axis = dir >> 1;
+
+		while (true) {
+			int px = x, py = y, pz = z;
+			x += sx;
+			y += sy;
+			z += sz;
+
+			if (!grid.isPassable(x, y, z)) return false;
+			if (isGoal(x, y, z)) {
+				jx = x;
+				jy = y;
+				jz = z;
+				return true;
+			}
+
+			boolean stop = false;
+			if (axis == AXIS_X) {
+				stop = forced(px, py, pz, x, y, z, 2) || forced(px, py, pz, x, y, z, 3)
+						|| forced(px, py, pz, x, y, z, 4) || forced(px, py, pz, x, y, z, 5);
+			} else if (axis == AXIS_Y) {
+				stop = forced(px, py, pz, x, y, z, 4) || forced(px, py, pz, x, y, z, 5)
+						|| jump(x, y, z, 0) || jump(x, y, z, 1);
+			} else {
+				stop = jump(x, y, z, 0) || jump(x, y, z, 1) || jump(x, y, z, 2) || jump(x, y, z, 3);
+			}
+
+			if (stop) {
+				jx = x;
+				jy = y;
+				jz = z;
+				return true;
+			}
+		}
+	}
+
+	/** A neighbor is forced when it is free but the cell next to the previous cell in the same direction is blocked. */
+	boolean forced(int px, int py, int pz, int x, int y, int z, int dir) {
+		return !grid.isPassable(px + dx[dir], py + dy[dir], pz + dz[dir]) && grid.isPassable(x + dx[dir], y + dy[dir], z + dz[dir]);
+	}
+
+	/** Expand the jump points back to the origin into the full cell path. */
+	IPath<V> trace(Node node) {
+		IPath<V> path = grid.createPath();
+		path.reserve(node.g + 1);
+		path.addFirst(grid.vertexAt(node.x, node.y, node.z));
+
+		for (Node curr = node; curr.parent != null; curr = curr.parent) {
+			int sx = Integer.signum(curr.parent.x - curr.x), sy = Integer.signum(curr.parent.y - curr.y), sz = Integer.signum(curr.parent.z - curr.z);
+			int x = curr.x, y = curr.y, z = curr.z;
+			do {
+				x += sx;
+				y += sy;
+				z += sz;
+				path.addFirst(grid.vertexAt(x, y, z));
+			} while (x != curr.parent.x || y != curr.parent.y || z != curr.parent.z);
+		}
+		return path;
+	}
+
+	static final class Node implements Comparable<Node> {
+		final int x, y, z, g, dir;
+		final Node parent;
+		int f;
+		boolean closed;
+
+		Node(int x, int y, int z, int g, Node parent, int dir) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.g = g;
+			this.parent = parent;
+			this.dir = dir;
+		}
+
+		@Override
+		public int compareTo(Node o) {
+			return f != o.f ? Integer.compare(f, o.f) : Integer.compare(o.g, g);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * A path searcher specialized for uniform cost 3D block grids, where each vertex is a cell linked to its 6 face neighbors.
+ * Instead of expanding every cell like BFS, the search uses Jump Point Search: it follows a canonical order of axes (moves
+ * along z first, then y, then x) and scans straight lines without queuing the cells in between, only stopping at the cells
+ * where the canonical order is broken by an obstacle (forced neighbors) or where a destination is found. On open areas and in
+ * long corridors this queues only a small fraction of the cells, while the paths remain shortest paths.
+ * <p>The implementation only needs to provide the coordinates of the vertices and the passability of the cells, the links are
+ * derived from them. The coordinates must fit the packing of {@code BlockPos.asLong()}: 26 bits for x and z, 12 bits for y.
+ *
+ * @since 1.0.8
+ */
+public interface GridPathFinder<V> extends PathFinder<V> {
+	/** Get the x coordinate of a vertex. */
+	int x(V vert);
+
+	/** Get the y coordinate of a vertex. */
+	int y(V vert);
+
+	/** Get the z coordinate of a vertex. */
+	int z(V vert);
+
+	/**
+	 * Obtain the vertex of a cell, this is only called for the cells on the resulting paths and for the destination checks.
+	 *
+	 * @return The vertex at the given coordinates
+	 */
+	V vertexAt(int x, int y, int z);
+
+	/**
+	 * Check whether a cell can be traversed, this is called very often during the search and should be fast. Cells outside
+	 * of the searched area should return false.
+	 */
+	boolean isPassable(int x, int y, int z);
+
+	/**
+	 * Check whether a cell is a destination of the origin, this is called for every scanned cell. The default implementation
+	 * delegates to {@link #isDestination(Object, Object)}, override it if the check can be done on the coordinates directly.
+	 */
+	default boolean isDestination(V origin, int x, int y, int z) {
+		return isDestination(origin, vertexAt(x, y, z));
+	}
+
+	/** The links of a cell are its passable face neighbors. */
+	@Override
+	default Iterable<V> getLinkVertices(V curr) {
+		int x = x(curr), y = y(curr), z = z(curr);
+
+		ArrayList<V> out = new ArrayList<>(6);
+		for (int dir = 0; dir < 6; dir++) {
+			int nx = x + GridJumpSearch.dx[dir], ny = y + GridJumpSearch.dy[dir], nz = z + GridJumpSearch.dz[dir];
+			if (isPassable(nx, ny, nz)) out.add(vertexAt(nx, ny, nz));
+		}
+		return out;
+	}
+
+	/**
+	 * Jump Point Search from the origin to every reachable destination. The search runs without heuristic until the whole
+	 * reachable grid is covered, and every destination receives one of its shortest paths. Covering the whole grid costs more
+	 * than a guided search, on densely cluttered grids it can be slower than a plain BFS.
+	 *
+	 * @see PathFinder#findPath(Object, PathFindFunc.PathAcceptor)
+	 */
+	@Override
+	default void findPath(V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		new GridJumpSearch<>(this, origin, null).search(pathConsumer);
+	}
+
+	/**
+	 * Jump Point Search from the origin to a single target, guided by the Manhattan distance. This is much faster than
+	 * {@link #findPath(Object, PathFindFunc.PathAcceptor)} when only one destination is needed.
+	 *
+	 * @return One of the shortest paths, or null if the target is not reachable
+	 */
+	default IPath<V> findPath(V origin, V target) {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		IPath<V>[] result = new IPath[1];
+		new GridJumpSearch<>(this, origin, target).search((dest, path) -> result[0] = path);
+		return result[0];
+	}
+
+	/**
+	 * Breadth first flood fill over the passable cells.
+	 *
+	 * @see PathFinder#eachVertices(Object, PathFindFunc.VerticesAcceptor)
+	 */
+	@Override
+	default void eachVertices(V origin, PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		HashSet<Long> visited = new HashSet<>();
+		ArrayDeque<V> queue = new ArrayDeque<>();
+
+		visited.add(GridJumpSearch.pack(x(origin), y(origin), z(origin)));
+		queue.add(origin);
+
+		V vert;
+		while ((vert = queue.poll()) != null) {
+			for (V next : getLinkVertices(vert)) {
+				if (visited.add(GridJumpSearch.pack(x(next), y(next), z(next)))) queue.add(next);
+			}
+			vertConsumer.accept(vert);
+		}
+	}
+
+	/** Create an empty path object for the search results, returns an {@link ArrayPath} by default. */
+	default IPath<V> createPath() {
+		return new ArrayPath<>();
+	}
+}
@@ -0,0 +1,412 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical path searcher (HPA*) for long range routes over large graphs. The vertices are grouped into clusters, for
+ * example one cluster per chunk, and the searcher precomputes for every cluster its entrances (vertices linked to or from
+ * another cluster) and the distances between them inside the cluster. A query first searches the small abstract graph formed
+ * by the entrances, then refines the abstract route into a vertex path using the stored intra cluster search trees.
+ * <p>When the graph is edited, only the clusters touched by the edit are marked dirty, and they are rebuilt lazily before the
+ * next query. Clusters that have never been reached by a query are not built at all.
+ * <p>Like most hierarchical searches, the returned path is not guaranteed to be the shortest one, but it is usually close to
+ * it. All link costs are 1, and {@link #heuristic(Object, Object)} can be overridden to turn the abstract search into A*.
+ * <p>This class is not thread-safe.
+ *
+ * @since 1.0.8
+ */
+public abstract class HierarchicalPathFinder<V> implements PathFinder<V>, GraphListener<V> {
+	protected final HashMap<Object, Cluster<V>> clusters = new HashMap<>();
+	protected final HashSet<Object> dirty = new HashSet<>();
+
+	/**
+	 * Get the key of the cluster a vertex belongs to, such as the position of its chunk. The key must implement
+	 * {@code equals} and {@code hashCode} correctly.
+	 *
+	 * @param vert The vertex to get the cluster of
+	 * @return The cluster key
+	 */
+	public abstract Object clusterOf(V vert);
+
+	/**
+	 * Get all vertices that belong to a cluster.
+	 *
+	 * @param cluster The cluster key returned by {@link #clusterOf(Object)}
+	 * @return Every vertex whose cluster is the given key
+	 */
+	public abstract Iterable<V> clusterVertices(Object cluster);
+
+	/**
+	 * Estimate of the distance between two vertices for the abstract search, must not overestimate the real distance.
+	 * Returns 0 by default, which makes the abstract search a plain Dijkstra search.
+	 */
+	public int heuristic(V from, V to) {
+		return 0;
+	}
+
+	/**
+	 * Get the destinations that {@link #findPath(Object, PathFindFunc.PathAcceptor)} should route to from an origin. By default
+	 * this traverses the whole reachable graph and keeps the vertices accepted by {@link #isDestination(Object, Object)}, which is
+	 * as slow as a flat search, so it should be overridden when the destinations are known in advance.
+	 */
+	public Iterable<V> destinations(V origin) {
+		ArrayList<V> out = new ArrayList<>();
+		eachVertices(origin, vert -> {
+			if (isDestination(origin, vert)) out.add(vert);
+		});
+		return out;
+	}
+
+	/** Create an empty path object for the refined routes. */
+	public IPath<V> createPath() {
+		return new ArrayPath<>();
+	}
+
+	/** Searches a route to every destination given by {@link #destinations(Object)}. */
+	@Override
+	public void findPath(V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		for (V target : destinations(origin)) {
+			IPath<V> path = findPath(origin, target);
+			if (path != null) pathConsumer.accept(target, path);
+		}
+	}
+
+	/**
+	 * Search a route from the origin to the target over the abstract graph and refine it into a vertex path.
+	 *
+	 * @return The path, or null if the target is not reachable
+	 */
+	public IPath<V> findPath(V origin, V target) {
+		if (origin.equals(target)) {
+			IPath<V> path = createPath();
+			path.addLast(origin);
+			return path;
+		}
+
+		repair();
+
+		Object originKey = clusterOf(origin), targetKey = clusterOf(target);
+		Cluster<V> originCluster = cluster(originKey);
+		cluster(targetKey);
+
+		HashMap<V, V> local = searchCluster(origin, originKey);
+
+		// Prefer a route that stays inside the cluster, entering the abstract graph would not make it much shorter.
+		if (originKey.equals(targetKey) && local.containsKey(target)) {
+			IPath<V> path = createPath();
+			path.addLast(origin);
+			appendSegment(path, local, origin, target);
+			return path;
+		}
+
+		HashMap<V, Integer> costs = new HashMap<>();
+		HashMap<V, V> previous = new HashMap<>();
+		PriorityQueue<Step<V>> queue = new PriorityQueue<>();
+
+		HashSet<V> entrances = originCluster.entrances();
+		if (entrances.contains(origin)) {
+			costs.put(origin, 0);
+			queue.add(new Step<>(origin, 0, heuristic(origin, target)));
+		} else {
+			for (V entrance : entrances) {
+				if (local.containsKey(entrance)) {
+					relax(entrance, origin, depth(local, entrance), target, costs, previous, queue);
+				}
+			}
+		}
+
+		Step<V> step;
+		while ((step = queue.poll()) != null) {
+			V vert = step.vert;
+			if (step.cost > costs.get(vert)) continue;
+			if (vert.equals(target)) break;
+
+			Object key = clusterOf(vert);
+			Cluster<V> cluster = cluster(key);
+
+			HashMap<V, V> tree = cluster.trees.get(vert);
+			if (tree != null) {
+				for (var entry : cluster.intra.get(vert).entrySet()) {
+					relax(entry.getKey(), vert, step.cost + entry.getValue(), target, costs, previous, queue);
+				}
+
+				if (key.equals(targetKey) && tree.containsKey(target)) {
+					relax(target, vert, step.cost + depth(tree, target), target, costs, previous, queue);
+				}
+			}
+
+			ArrayList<V> links = cluster.links.get(vert);
+			if (links != null) {
+				for (V next : links) {
+					relax(next, vert, step.cost + 1, target, costs, previous, queue);
+				}
+			}
+		}
+
+		if (!previous.containsKey(target)) return null;
+
+		ArrayList<V> route = new ArrayList<>();
+		for (V vert = target; vert != null; vert = previous.get(vert)) {
+			route.add(vert);
+		}
+
+		IPath<V> path = createPath();
+		path.addLast(origin);
+		for (int i = route.size() - 1; i > 0; i--) {
+			V from = route.get(i), to = route.get(i - 1);
+			if (!clusterOf(from).equals(clusterOf(to))) {
+				path.addLast(to);
+			} else {
+				HashMap<V, V> tree = i == route.size() - 1 ? local : clusters.get(clusterOf(from)).trees.get(from);
+				if (tree == null || !tree.containsKey(to)) {
+					// The cluster has been rebuilt during the search, search the segment again.
+					tree = searchCluster(from, clusterOf(from));
+					if (!tree.containsKey(to)) return null;
+				}
+				appendSegment(path, tree, from, to);
+			}
+		}
+		return path;
+	}
+
+	/** Plain BFS traversal over the vertices, the hierarchy is not useful for visiting every vertex. */
+	@Override
+	public void eachVertices(V origin, PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		HashSet<V> visited = new HashSet<>();
+		ArrayDeque<V> queue = new ArrayDeque<>();
+		visited.add(origin);
+		queue.add(origin);
+
+		V vert;
+		while ((vert = queue.poll()) != null) {
+			vertConsumer.accept(vert);
+			for (V next : getLinkVertices(vert)) {
+				if (visited.add(next)) queue.add(next);
+			}
+		}
+	}
+
+	/** Build the given clusters ahead of time, so the first queries through them do not pay for it. */
+	public void precompute(Iterable<?> keys) {
+		for (Object key : keys) {
+			rebuild(key);
+		}
+	}
+
+	/** Rebuild every cluster that has been marked dirty by an edit. */
+	public void repair() {
+		while (!dirty.isEmpty()) {
+			Iterator<Object> iterator = dirty.iterator();
+			Object key = iterator.next();
+			iterator.remove();
+			rebuild(key);
+		}
+	}
+
+	/** Mark the cluster of a vertex dirty, as well as the clusters that link to the vertex. */
+	public void invalidate(V vert) {
+		Object key = clusterOf(vert);
+		Cluster<V> cluster = clusters.get(key);
+		if (cluster == null) return;
+
+		if (cluster.built) dirty.add(key);
+
+		HashSet<Object> sources = cluster.entries.get(vert);
+		if (sources != null) {
+			for (Object source : sources) {
+				if (clusters.get(source).built) dirty.add(source);
+			}
+		}
+	}
+
+	/** Drop all clusters, they are built again on demand. */
+	public void clear() {
+		clusters.clear();
+		dirty.clear();
+	}
+
+	@Override
+	public void vertexAdded(V vert) {
+		invalidate(vert);
+	}
+
+	@Override
+	public void vertexRemoved(V vert) {
+		invalidate(vert);
+	}
+
+	@Override
+	public void edgeAdded(V from, V to) {
+		invalidate(from);
+	}
+
+	@Override
+	public void edgeRemoved(V from, V to) {
+		invalidate(from);
+	}
+
+	protected Cluster<V> cluster(Object key) {
+		Cluster<V> cluster = clusters.get(key);
+		if (cluster == null || !cluster.built || dirty.remove(key)) {
+			cluster = rebuild(key);
+		}
+		return cluster;
+	}
+
+	/** Recompute the links, entrances and intra cluster search trees of a cluster. */
+	protected Cluster<V> rebuild(Object key) {
+		Cluster<V> cluster = clusters.computeIfAbsent(key, Cluster::new);
+		dirty.remove(key);
+
+		HashSet<V> oldTargets = new HashSet<>();
+		for (ArrayList<V> targets : cluster.links.values()) {
+			oldTargets.addAll(targets);
+		}
+		cluster.links.clear();
+		cluster.trees.clear();
+		cluster.intra.clear();
+
+		HashSet<V> newTargets = new HashSet<>();
+		for (V vert : clusterVertices(key)) {
+			for (V next : getLinkVertices(vert)) {
+				if (key.equals(clusterOf(next))) continue;
+
+				cluster.links.computeIfAbsent(vert, k -> new ArrayList<>()).add(next);
+				newTargets.add(next);
+			}
+		}
+
+		// Other clusters only need to be rebuilt when their set of entrances changes.
+		for (V next : oldTargets) {
+			if (newTargets.contains(next)) continue;
+
+			Cluster<V> other = clusters.get(clusterOf(next));
+			HashSet<Object> sources = other == null ? null : other.entries.get(next);
+			if (sources != null && sources.remove(key) && sources.isEmpty()) {
+				other.entries.remove(next);
+				if (other.built && !other.links.containsKey(next)) dirty.add(other.key);
+			}
+		}
+		for (V next : newTargets) {
+			Cluster<V> other = clusters.computeIfAbsent(clusterOf(next), Cluster::new);
+			HashSet<Object> sources = other.entries.get(next);
+			if (sources == null) {
+				other.entries.put(next, sources = new HashSet<>());
+				if (other.built && !other.links.containsKey(next)) dirty.add(other.key);
+			}
+			sources.add(key);
+		}
+
+		HashSet<V> entrances = cluster.entrances();
+		for (V entrance : entrances) {
+			HashMap<V, V> tree = searchCluster(entrance, key);
+			HashMap<V, Integer> distances = new HashMap<>();
+
+			for (V other : entrances) {
+				if (!other.equals(entrance) && tree.containsKey(other)) {
+					distances.put(other, depth(tree, other));
+				}
+			}
+
+			cluster.trees.put(entrance, tree);
+			cluster.intra.put(entrance, distances);
+		}
+
+		cluster.built = true;
+		return cluster;
+	}
+
+	/** BFS restricted to one cluster, returns the map of each reached vertex to its parent, the origin is mapped to itself. */
+	protected HashMap<V, V> searchCluster(V origin, Object key) {
+		HashMap<V, V> parents = new HashMap<>();
+		ArrayDeque<V> queue = new ArrayDeque<>();
+		parents.put(origin, origin);
+		queue.add(origin);
+
+		V vert;
+		while ((vert = queue.poll()) != null) {
+			for (V next : getLinkVertices(vert)) {
+				if (!parents.containsKey(next) && key.equals(clusterOf(next))) {
+					parents.put(next, vert);
+					queue.add(next);
+				}
+			}
+		}
+		return parents;
+	}
+
+	protected void relax(V vert, V from, int cost, V target, HashMap<V, Integer> costs, HashMap<V, V> previous, PriorityQueue<Step<V>> queue) {
+		Integer old = costs.get(vert);
+		if (old != null && old <= cost) return;
+
+		costs.put(vert, cost);
+		previous.put(vert, from);
+		queue.add(new Step<>(vert, cost, cost + heuristic(vert, target)));
+	}
+
+	/** Append the vertices of the tree path from {@code from} (exclusive) to {@code to} (inclusive). */
+	protected static <V> void appendSegment(IPath<V> path, HashMap<V, V> tree, V from, V to) {
+		ArrayList<V> segment = new ArrayList<>();
+		for (V vert = to; !vert.equals(from); vert = tree.get(vert)) {
+			segment.add(vert);
+		}
+		for (int i = segment.size() - 1; i >= 0; i--) {
+			path.addLast(segment.get(i));
+		}
+	}
+
+	protected static <V> int depth(HashMap<V, V> tree, V vert) {
+		int depth = 0;
+		for (V parent; !(parent = tree.get(vert)).equals(vert); vert = parent) {
+			depth++;
+		}
+		return depth;
+	}
+
+	protected static class Cluster<V> {
+		public final Object key;
+
+		/** Vertices of this cluster linked to vertices of other clusters. */
+		public final HashMap<V, ArrayList<V>> links = new HashMap<>();
+		/** Vertices of this cluster linked from other clusters, mapped to the keys of those clusters. */
+		public final HashMap<V, HashSet<Object>> entries = new HashMap<>();
+
+		/** The BFS tree inside this cluster from every entrance. */
+		public final HashMap<V, HashMap<V, V>> trees = new HashMap<>();
+		/** The distances between the entrances inside this cluster. */
+		public final HashMap<V, HashMap<V, Integer>> intra = new HashMap<>();
+
+		public boolean built;
+
+		public Cluster(Object key) {
+			this.key = key;
+		}
+
+		public HashSet<V> entrances() {
+			HashSet<V> out = new HashSet<>(links.keySet());
+			out.addAll(entries.keySet());
+			return out;
+		}
+	}
+
+	protected static class Step<V> implements Comparable<Step<V>> {
+		public final V vert;
+		public final int cost, estimate;
+
+		public Step(V vert, int cost, int estimate) {
+			this.vert = vert;
+			this.cost = cost;
+			this.estimate = estimate;
+		}
+
+		@Override
+		public int compareTo(Step<V> o) {
+			return Integer.compare(estimate, o.estimate);
+		}
+	}
+}
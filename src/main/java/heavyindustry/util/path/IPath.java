@@ -3,8 +3,9 @@ package heavyindustry.util.path;
 /**
  * The basic interface of the path storage type should be assigned corresponding functions to the class, and the iterable interface has been extended.
  * The path should traverse all vertices of the path in order from the starting point to the ending point.
- * <p>Usually, you can use the {@link java.util.LinkedList} implemented based on {@link GenericPath} to provide a universal path storage.
+ * <p>Usually, you can use the array based {@link ArrayPath} to provide a universal path storage.
  *
+ * @see ArrayPath
  * @see GenericPath
  * @since 1.0.5
  */
@@ -36,4 +37,12 @@ public interface IPath<V> extends Iterable<V> {
 	 * @return Node located at the end position
 	 */
 	V destination();
+
+	/**
+	 * Hint that the given number of vertices are going to be inserted, so that the implementation can allocate its storage
+	 * once. Does nothing by default.
+	 *
+	 * @param count The number of vertices that will be added
+	 */
+	default void reserve(int count) {}
 }
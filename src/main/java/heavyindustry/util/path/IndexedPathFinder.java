@@ -0,0 +1,27 @@
+package heavyindustry.util.path;
+
+/**
+ * A path searcher whose vertices can be mapped to dense integer indices, which allows the search algorithm to use flat arrays and
+ * bit sets instead of hash tables to store the traversal state.
+ * <p>The indices do not need to be contiguous, but they should be compact enough, the memory used by the search state is
+ * proportional to {@link #vertexCapacity()}.
+ *
+ * @since 1.0.8
+ */
+public interface IndexedPathFinder<V> extends PathFinder<V> {
+	/**
+	 * Obtain the index of a vertex, the index must be stable during a search and must be in range {@code [0, vertexCapacity())}.
+	 * Different vertices must not share the same index.
+	 *
+	 * @param vert The vertex to get the index
+	 * @return The index of the vertex
+	 */
+	int vertexIndex(V vert);
+
+	/**
+	 * Get the upper bound (exclusive) of the vertex indices, which determines the size of the arrays used for the search state.
+	 *
+	 * @return The exclusive upper bound of all vertex indices
+	 */
+	int vertexCapacity();
+}
@@ -0,0 +1,62 @@
+package heavyindustry.util.path;
+
+/**
+ * A decorator that records the costs of the queries of any path finder into {@link PathMetrics}, for finders that do not
+ * report them on their own through {@link BFSPathFinder#metrics()}.
+ * <p>The searches of the decorated finder are opaque, so only the wall time, the allocated bytes and the number of vertices
+ * or destinations reported to the callbacks are recorded as expanded vertices, the relaxed links and frontier sizes stay 0.
+ *
+ * @since 1.0.8
+ */
+public class InstrumentedPathFinder<V> implements PathFinder<V> {
+	protected final PathFinder<V> source;
+	protected final PathMetrics metrics;
+
+	/**
+	 * @param source  The finder whose queries are measured
+	 * @param metrics The metrics to record into
+	 */
+	public InstrumentedPathFinder(PathFinder<V> source, PathMetrics metrics) {
+		this.source = source;
+		this.metrics = metrics;
+	}
+
+	/** Measure the finder with the registered metrics of the given name. */
+	public InstrumentedPathFinder(PathFinder<V> source, String name) {
+		this(source, PathMetrics.of(name));
+	}
+
+	@Override
+	public Iterable<V> getLinkVertices(V curr) {
+		return source.getLinkVertices(curr);
+	}
+
+	@Override
+	public boolean isDestination(V origin, V vert) {
+		return source.isDestination(origin, vert);
+	}
+
+	@Override
+	public void findPath(V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		PathMetrics.Probe probe = PathMetrics.begin(metrics, PathMetrics.FIND_PATH);
+		source.findPath(origin, (destination, path) -> {
+			probe.expand();
+			pathConsumer.accept(destination, path);
+		});
+		probe.end();
+	}
+
+	@Override
+	public void eachVertices(V origin, PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		PathMetrics.Probe probe = PathMetrics.begin(metrics, PathMetrics.EACH_VERTICES);
+		source.eachVertices(origin, vert -> {
+			probe.expand();
+			vertConsumer.accept(vert);
+		});
+		probe.end();
+	}
+
+	public PathMetrics metrics() {
+		return metrics;
+	}
+}
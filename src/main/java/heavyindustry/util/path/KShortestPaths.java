@@ -0,0 +1,187 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the {@code k} shortest loopless paths between two vertices with Yen's algorithm. Each further path is derived from the
+ * previous ones by searching a detour from every vertex along them while the links already used by a path with the same prefix
+ * are blocked, so the returned paths are distinct and sorted by cost.
+ * <p>Every link costs 1 by default, override {@link #linkCost(Object, Object)} for weighted graphs.
+ * <p>This class is not thread-safe.
+ *
+ * @see LoadBalancedRouter
+ * @since 1.0.8
+ */
+public class KShortestPaths<V> {
+	protected final PathFinder<V> graph;
+
+	/** @param graph The graph to search */
+	public KShortestPaths(PathFinder<V> graph) {
+		this.graph = graph;
+	}
+
+	/** The cost of moving from a vertex to a linked vertex, must be positive. Returns 1 by default. */
+	protected int linkCost(V from, V to) {
+		return 1;
+	}
+
+	/**
+	 * Find up to {@code k} shortest loopless paths from the origin to the target, ordered by increasing cost.
+	 *
+	 * @return The paths found, empty if the target is not reachable
+	 */
+	public List<ArrayPath<V>> find(V origin, V target, int k) {
+		ArrayList<ArrayPath<V>> out = new ArrayList<>(k);
+		if (k <= 0) return out;
+
+		Candidate<V> first = shortest(origin, target, new HashSet<>(), new HashSet<>());
+		if (first == null) return out;
+
+		ArrayList<Candidate<V>> accepted = new ArrayList<>();
+		accepted.add(first);
+
+		PriorityQueue<Candidate<V>> candidates = new PriorityQueue<>();
+		HashSet<List<V>> known = new HashSet<>();
+		known.add(first.vertices);
+
+		HashSet<V> blockedVertices = new HashSet<>();
+		HashSet<LoadBalancedRouter.Link<V>> blockedLinks = new HashSet<>();
+
+		while (accepted.size() < k) {
+			List<V> previous = accepted.get(accepted.size() - 1).vertices;
+
+			int rootCost = 0;
+			for (int i = 0; i < previous.size() - 1; i++) {
+				V spur = previous.get(i);
+				List<V> root = previous.subList(0, i + 1);
+
+				blockedVertices.clear();
+				blockedLinks.clear();
+				for (int j = 0; j < i; j++) {
+					blockedVertices.add(previous.get(j));
+				}
+				for (Candidate<V> path : accepted) {
+					if (path.vertices.size() > i + 1 && path.vertices.subList(0, i + 1).equals(root)) {
+						blockedLinks.add(new LoadBalancedRouter.Link<>(path.vertices.get(i), path.vertices.get(i + 1)));
+					}
+				}
+
+				Candidate<V> detour = shortest(spur, target, blockedVertices, blockedLinks);
+				if (detour != null) {
+					ArrayList<V> vertices = new ArrayList<>(i + detour.vertices.size());
+					vertices.addAll(previous.subList(0, i));
+					vertices.addAll(detour.vertices);
+
+					if (known.add(vertices)) candidates.add(new Candidate<>(vertices, rootCost + detour.cost));
+				}
+
+				rootCost += linkCost(spur, previous.get(i + 1));
+			}
+
+			Candidate<V> best = candidates.poll();
+			if (best == null) break;
+			accepted.add(best);
+		}
+
+		for (Candidate<V> path : accepted) {
+			ArrayPath<V> result = new ArrayPath<>(path.vertices.size());
+			for (V vert : path.vertices) {
+				result.addLast(vert);
+			}
+			out.add(result);
+		}
+		return out;
+	}
+
+	/** Pass up to {@code k} shortest paths from the origin to the target to the callback, in order of increasing cost. */
+	public void find(V origin, V target, int k, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		for (ArrayPath<V> path : find(origin, target, k)) {
+			pathConsumer.accept(target, path);
+		}
+	}
+
+	/** @return The sum of the costs of the links along the path. */
+	public int cost(IPath<V> path) {
+		int cost = 0;
+		V last = null;
+		for (V vert : path) {
+			if (last != null) cost += linkCost(last, vert);
+			last = vert;
+		}
+		return cost;
+	}
+
+	/** Dijkstra search that avoids the blocked vertices and links, returns null if the target is not reachable. */
+	protected Candidate<V> shortest(V origin, V target, HashSet<V> blockedVertices, HashSet<LoadBalancedRouter.Link<V>> blockedLinks) {
+		HashMap<V, Integer> costs = new HashMap<>();
+		HashMap<V, V> previous = new HashMap<>();
+		PriorityQueue<Step<V>> queue = new PriorityQueue<>();
+
+		costs.put(origin, 0);
+		queue.add(new Step<>(origin, 0));
+
+		Step<V> step;
+		while ((step = queue.poll()) != null) {
+			V vert = step.vert;
+			if (step.cost > costs.get(vert)) continue;
+			if (vert.equals(target)) break;
+
+			for (V next : graph.getLinkVertices(vert)) {
+				if (blockedVertices.contains(next) || (!blockedLinks.isEmpty() && blockedLinks.contains(new LoadBalancedRouter.Link<>(vert, next)))) continue;
+
+				int cost = step.cost + linkCost(vert, next);
+				Integer old = costs.get(next);
+				if (old == null || cost < old) {
+					costs.put(next, cost);
+					previous.put(next, vert);
+					queue.add(new Step<>(next, cost));
+				}
+			}
+		}
+
+		Integer cost = costs.get(target);
+		if (cost == null) return null;
+
+		ArrayList<V> vertices = new ArrayList<>();
+		for (V vert = target; vert != null; vert = previous.get(vert)) {
+			vertices.add(vert);
+		}
+		Collections.reverse(vertices);
+		return new Candidate<>(vertices, cost);
+	}
+
+	protected static class Candidate<V> implements Comparable<Candidate<V>> {
+		public final List<V> vertices;
+		public final int cost;
+
+		public Candidate(List<V> vertices, int cost) {
+			this.vertices = vertices;
+			this.cost = cost;
+		}
+
+		@Override
+		public int compareTo(Candidate<V> o) {
+			return cost != o.cost ? Integer.compare(cost, o.cost) : Integer.compare(vertices.size(), o.vertices.size());
+		}
+	}
+
+	protected static class Step<V> implements Comparable<Step<V>> {
+		public final V vert;
+		public final int cost;
+
+		public Step(V vert, int cost) {
+			this.vert = vert;
+			this.cost = cost;
+		}
+
+		@Override
+		public int compareTo(Step<V> o) {
+			return Integer.compare(cost, o.cost);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package heavyindustry.util.path;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Congestion aware route selection. Instead of sending everything along the single shortest path, the router considers the
+ * {@code k} shortest alternatives given by {@link KShortestPaths} and picks the one with the lowest score, where the score of a
+ * path is its cost plus {@link #congestionWeight} times the load already routed over its links.
+ * <p>Every routed path increases the load counters of its links until it is handed back with {@link #release(IPath)}, so the
+ * senders of a network spread out over the alternatives. The candidate paths are cached per origin and target, edit
+ * notifications through {@link GraphListener} drop the cache, the load counters are kept. The routed paths are read only views
+ * of the cached alternatives, so a caller can not change the routes of others or the links {@link #release(IPath)} unloads.
+ * <p>This class is not thread-safe.
+ *
+ * @since 1.0.8
+ */
+public class LoadBalancedRouter<V> implements GraphListener<V> {
+	protected final KShortestPaths<V> paths;
+	protected final int alternatives;
+
+	protected final HashMap<Link<V>, List<ArrayPath<V>>> candidates = new HashMap<>();
+	protected final HashMap<Link<V>, Integer> loads = new HashMap<>();
+
+	/** How much one unit of load on a link counts compared to one unit of path cost. */
+	public float congestionWeight = 1f;
+
+	/**
+	 * @param paths        The k shortest paths searcher providing the alternatives
+	 * @param alternatives The number of alternatives considered for each route
+	 */
+	public LoadBalancedRouter(KShortestPaths<V> paths, int alternatives) {
+		this.paths = paths;
+		this.alternatives = alternatives;
+	}
+
+	/**
+	 * Pick the least congested of the alternative paths from the origin to the target and add it to the load counters.
+	 *
+	 * @return The chosen path as a read only view of the cached alternative, or null if the target is not reachable
+	 */
+	public IPath<V> route(V origin, V target) {
+		List<ArrayPath<V>> options = candidates.computeIfAbsent(new Link<>(origin, target), k -> paths.find(origin, target, alternatives));
+
+		ArrayPath<V> best = null;
+		float bestScore = Float.MAX_VALUE;
+		for (ArrayPath<V> path : options) {
+			float score = paths.cost(path) + congestionWeight * load(path);
+			if (score < bestScore) {
+				bestScore = score;
+				best = path;
+			}
+		}
+
+		if (best == null) return null;
+
+		acquire(best);
+		// The alternatives are shared by all routes between the same vertices, callers must not be able to edit them.
+		return best.subPath(0, best.size());
+	}
+
+	/** Route from the origin to every target and pass the chosen paths to the callback. */
+	public void route(V origin, Iterable<V> targets, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		for (V target : targets) {
+			IPath<V> path = route(origin, target);
+			if (path != null) pathConsumer.accept(target, path);
+		}
+	}
+
+	/** Add one unit of load to every link of the path. */
+	public void acquire(IPath<V> path) {
+		V last = null;
+		for (V vert : path) {
+			if (last != null) loads.merge(new Link<>(last, vert), 1, Integer::sum);
+			last = vert;
+		}
+	}
+
+	/** Remove the load added by routing the path, for example when the transfer along it has finished. */
+	public void release(IPath<V> path) {
+		V last = null;
+		for (V vert : path) {
+			if (last != null) loads.computeIfPresent(new Link<>(last, vert), (k, v) -> v > 1 ? v - 1 : null);
+			last = vert;
+		}
+	}
+
+	/** @return The total load on the links of the path. */
+	public int load(IPath<V> path) {
+		int load = 0;
+		V last = null;
+		for (V vert : path) {
+			if (last != null) load += load(last, vert);
+			last = vert;
+		}
+		return load;
+	}
+
+	/** @return The number of routed paths currently using the link. */
+	public int load(V from, V to) {
+		return loads.getOrDefault(new Link<>(from, to), 0);
+	}
+
+	public void clearLoads() {
+		loads.clear();
+	}
+
+	/** Drop the cached alternatives, they are searched again on the next route. */
+	public void invalidate() {
+		candidates.clear();
+	}
+
+	@Override
+	public void vertexRemoved(V vert) {
+		invalidate();
+	}
+
+	@Override
+	public void edgeAdded(V from, V to) {
+		invalidate();
+	}
+
+	@Override
+	public void edgeRemoved(V from, V to) {
+		invalidate();
+	}
+
+	/** A directed link between two vertices, used as a key for load counters and blocked links. */
+	public static final class Link<V> {
+		public final V from, to;
+
+		public Link(V from, V to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return this == o || o instanceof Link<?> link && Objects.equals(from, link.from) && Objects.equals(to, link.to);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Objects.hashCode(from) + Objects.hashCode(to);
+		}
+
+		@Override
+		public String toString() {
+			return from + " -> " + to;
+		}
+	}
+}
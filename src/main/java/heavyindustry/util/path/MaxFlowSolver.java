@@ -0,0 +1,289 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Maximum flow solver based on Dinic's algorithm, which answers how much a network can actually move per unit of time from a
+ * source to a sink, and how the flow is distributed over the links.
+ * <p>The reachable part of the network is copied into flat residual arrays by {@link #solve(Object, Object)}. After a few
+ * capacities have changed, {@link #setCapacity(Object, Object, long)} or {@link #refresh()} warm-start from the previous
+ * solution: the flow above a reduced capacity is rerouted or cancelled locally, and only the missing augmenting paths are
+ * searched again. Changes of the network structure require a new {@link #solve(Object, Object)}.
+ * <p>The search is iterative, so it is safe on very deep networks. This class is not thread-safe.
+ *
+ * @since 1.0.8
+ */
+public class MaxFlowSolver<V> {
+	protected final FlowNetwork<V> network;
+
+	protected final HashMap<V, Integer> indices = new HashMap<>();
+	protected final ArrayList<V> vertices = new ArrayList<>();
+
+	/** Edge {@code e} and its residual twin {@code e ^ 1}, the twin of a link has no capacity of its own. */
+	protected int[] to = new int[0], next = new int[0];
+	protected long[] capacity = new long[0], flow = new long[0];
+	protected int[] head = new int[0];
+	protected int edgeCount;
+
+	protected int[] level = new int[0], current = new int[0], path = new int[0];
+	protected int[] queue = new int[0];
+
+	protected int source = -1, sink = -1;
+	protected long maxFlow;
+
+	/** @param network The network providing links and capacities */
+	public MaxFlowSolver(FlowNetwork<V> network) {
+		this.network = network;
+	}
+
+	/**
+	 * Copy the part of the network reachable from the source and compute the maximum flow from scratch.
+	 *
+	 * @return The maximum flow from the source to the sink
+	 */
+	public long solve(V source, V sink) {
+		build(source);
+
+		Integer t = indices.get(sink);
+		this.source = 0;
+		this.sink = t == null ? -1 : t;
+		maxFlow = 0;
+
+		if (t != null && this.sink != this.source) maxFlow = dinic(this.source, this.sink, Long.MAX_VALUE);
+		return maxFlow;
+	}
+
+	protected void build(V origin) {
+		indices.clear();
+		vertices.clear();
+		edgeCount = 0;
+
+		indices.put(origin, 0);
+		vertices.add(origin);
+
+		HashSet<V> seen = new HashSet<>();
+		for (int i = 0; i < vertices.size(); i++) {
+			V vert = vertices.get(i);
+			seen.clear();
+
+			for (V other : network.getLinkVertices(vert)) {
+				if (other.equals(vert) || !seen.add(other)) continue;
+
+				Integer index = indices.get(other);
+				if (index == null) {
+					index = vertices.size();
+					indices.put(other, index);
+					vertices.add(other);
+				}
+				addEdge(i, index, Math.max(0, network.getCapacity(vert, other)));
+			}
+		}
+
+		int n = vertices.size();
+		head = new int[n];
+		Arrays.fill(head, -1);
+		for (int e = edgeCount - 1; e >= 0; e--) {
+			int from = to[e ^ 1];
+			next[e] = head[from];
+			head[from] = e;
+		}
+
+		level = new int[n];
+		current = new int[n];
+		path = new int[n];
+		queue = new int[n];
+	}
+
+	protected void addEdge(int from, int target, long cap) {
+		if (edgeCount + 2 > to.length) {
+			int size = Math.max(16, to.length * 2);
+			to = Arrays.copyOf(to, size);
+			next = Arrays.copyOf(next, size);
+			capacity = Arrays.copyOf(capacity, size);
+			flow = Arrays.copyOf(flow, size);
+		}
+
+		to[edgeCount] = target;
+		capacity[edgeCount] = cap;
+		flow[edgeCount++] = 0;
+
+		to[edgeCount] = from;
+		capacity[edgeCount] = 0;
+		flow[edgeCount++] = 0;
+	}
+
+	/**
+	 * Change the capacity of one link and update the maximum flow from the previous solution.
+	 *
+	 * @return The new maximum flow
+	 * @throws IllegalArgumentException If the link is not part of the solved network
+	 */
+	public long setCapacity(V from, V to, long cap) {
+		int e = edge(from, to);
+		if (e < 0) throw new IllegalArgumentException("no link from " + from + " to " + to + " in the solved network");
+
+		changeCapacity(e, Math.max(0, cap));
+		return augment();
+	}
+
+	/**
+	 * Read the capacities of all links from the network again and update the maximum flow from the previous solution.
+	 *
+	 * @return The new maximum flow
+	 */
+	public long refresh() {
+		for (int e = 0; e < edgeCount; e += 2) {
+			changeCapacity(e, Math.max(0, network.getCapacity(vertices.get(this.to[e ^ 1]), vertices.get(this.to[e]))));
+		}
+		return augment();
+	}
+
+	protected long augment() {
+		if (sink >= 0 && sink != source) maxFlow += dinic(source, sink, Long.MAX_VALUE);
+		return maxFlow;
+	}
+
+	protected void changeCapacity(int e, long cap) {
+		capacity[e] = cap;
+
+		long excess = flow[e] - cap;
+		if (excess <= 0) return;
+
+		flow[e] = cap;
+		flow[e ^ 1] = -cap;
+
+		int u = to[e ^ 1], v = to[e];
+
+		// First try to move the excess along another route from u to v, then cancel the rest back to the source and sink.
+		long rerouted = dinic(u, v, excess);
+		long rest = excess - rerouted;
+		if (rest > 0) {
+			if (u != source) dinic(u, source, rest);
+			if (v != sink) dinic(sink, v, rest);
+			maxFlow -= rest;
+		}
+	}
+
+	/** Push at most {@code limit} units from {@code s} to {@code t} over the residual graph. */
+	protected long dinic(int s, int t, long limit) {
+		long total = 0;
+		while (total < limit && levels(s, t)) {
+			System.arraycopy(head, 0, current, 0, head.length);
+			total += blockingFlow(s, t, limit - total);
+		}
+		return total;
+	}
+
+	protected boolean levels(int s, int t) {
+		Arrays.fill(level, -1);
+		int qHead = 0, qTail = 0;
+		queue[qTail++] = s;
+		level[s] = 0;
+
+		while (qHead < qTail) {
+			int u = queue[qHead++];
+			for (int e = head[u]; e != -1; e = next[e]) {
+				int v = to[e];
+				if (level[v] < 0 && capacity[e] - flow[e] > 0) {
+					level[v] = level[u] + 1;
+					queue[qTail++] = v;
+				}
+			}
+		}
+		return level[t] >= 0;
+	}
+
+	protected long blockingFlow(int s, int t, long limit) {
+		long total = 0;
+		int depth = 0;
+		int u = s;
+
+		while (total < limit) {
+			if (u == t) {
+				long pushed = limit - total;
+				for (int i = 0; i < depth; i++) {
+					pushed = Math.min(pushed, capacity[path[i]] - flow[path[i]]);
+				}
+				for (int i = 0; i < depth; i++) {
+					flow[path[i]] += pushed;
+					flow[path[i] ^ 1] -= pushed;
+				}
+				total += pushed;
+
+				depth = 0;
+				u = s;
+				continue;
+			}
+
+			int e = current[u];
+			while (e != -1 && (capacity[e] - flow[e] <= 0 || level[to[e]] != level[u] + 1)) {
+				e = next[e];
+			}
+			current[u] = e;
+
+			if (e != -1) {
+				path[depth++] = e;
+				u = to[e];
+			} else {
+				if (u == s) break;
+
+				// Dead end, it will not be entered again in this phase.
+				level[u] = -1;
+				u = to[path[--depth] ^ 1];
+				current[u] = next[current[u]];
+			}
+		}
+		return total;
+	}
+
+	protected int edge(V from, V target) {
+		Integer u = indices.get(from), v = indices.get(target);
+		if (u == null || v == null) return -1;
+
+		for (int e = head[u]; e != -1; e = next[e]) {
+			if ((e & 1) == 0 && to[e] == v) return e;
+		}
+		return -1;
+	}
+
+	/** @return The maximum flow found by the last solve or update. */
+	public long maxFlow() {
+		return maxFlow;
+	}
+
+	/** @return The amount flowing through the link, 0 if the link is not part of the solved network. */
+	public long flow(V from, V target) {
+		int e = edge(from, target);
+		return e < 0 ? 0 : flow[e];
+	}
+
+	/** Pass every link that carries flow to the callback. */
+	public void eachFlow(EdgeFlowAcceptor<V> acceptor) {
+		for (int e = 0; e < edgeCount; e += 2) {
+			if (flow[e] > 0) acceptor.accept(vertices.get(to[e ^ 1]), vertices.get(to[e]), flow[e]);
+		}
+	}
+
+	/**
+	 * Check on which side of the minimum cut a vertex lies. The links from the source side to the other side are the
+	 * bottlenecks of the network.
+	 *
+	 * @return Whether the vertex can still receive flow from the source in the residual network
+	 */
+	public boolean isSourceSide(V vert) {
+		Integer index = indices.get(vert);
+		if (index == null || source < 0) return false;
+
+		levels(source, source);
+		return level[index] >= 0;
+	}
+
+	/** Receiver of the flow of one link. */
+	@FunctionalInterface
+	public interface EdgeFlowAcceptor<V> {
+		void accept(V from, V to, long flow);
+	}
+}
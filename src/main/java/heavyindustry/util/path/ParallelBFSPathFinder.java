@@ -0,0 +1,80 @@
+package heavyindustry.util.path;
+
+import heavyindustry.util.AtomicBitSet;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A BFS path searcher with a parallel implementation of {@link #eachVertices(Object, PathFindFunc.VerticesAcceptor)},
+ * intended for very large graphs such as power networks with hundreds of thousands of vertices.
+ * <p>The traversal is level synchronous: the whole frontier of the current level is expanded by the worker threads of
+ * {@link #pool()}, each worker collects the newly discovered vertices into its own local frontier, and the local frontiers are
+ * merged into the frontier of the next level once every worker has finished. Visited vertices are recorded in an
+ * {@link AtomicBitSet} indexed by {@link #vertexIndex(Object)}, so each vertex is claimed by exactly one worker.
+ * <p><strong>Note:</strong> {@link #getLinkVertices(Object)}, {@link #exclude(Object)} and {@link #vertexIndex(Object)} are
+ * called from multiple threads at the same time during the traversal, they must be safe for concurrent reads. The vertex
+ * callback is always invoked on the calling thread.
+ *
+ * @since 1.0.8
+ */
+public interface ParallelBFSPathFinder<V> extends BFSPathFinder<V>, IndexedPathFinder<V> {
+	/**
+	 * The thread pool used to expand the frontier, uses the common pool by default.
+	 *
+	 * @return The pool that runs the expansion tasks
+	 */
+	default ForkJoinPool pool() {
+		return ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * The minimum frontier size that is expanded in parallel, smaller frontiers are expanded on the calling thread because the
+	 * cost of forking tasks outweighs the benefit.
+	 *
+	 * @return The minimum size of a frontier to be expanded in parallel
+	 */
+	default int parallelThreshold() {
+		return 1024;
+	}
+
+	/**
+	 * Parallel implementation of graph traversal based on level synchronous BFS. The vertices are passed to the callback level
+	 * by level, the order of the vertices within one level is not specified.
+	 *
+	 * @see PathFinder#eachVertices(Object, PathFindFunc.VerticesAcceptor)
+	 */
+	@Override
+	default void eachVertices(V origin, PathFindFunc.VerticesAcceptor<V> vertConsumer) {
+		PathMetrics.Probe probe = PathMetrics.begin(metrics(), PathMetrics.EACH_VERTICES);
+
+		AtomicBitSet visited = new AtomicBitSet(vertexCapacity());
+		visited.setPlain(vertexIndex(origin));
+
+		ForkJoinPool pool = pool();
+		int threshold = Math.max(1, parallelThreshold());
+
+		ArrayList<V> frontier = new ArrayList<>();
+		frontier.add(origin);
+
+		while (!frontier.isEmpty()) {
+			if (probe != null) {
+				// The links are examined by the workers, only the level sizes are recorded.
+				probe.expanded += frontier.size();
+				probe.frontier(frontier.size());
+			}
+
+			for (V v : frontier) {
+				vertConsumer.accept(v);
+			}
+
+			if (frontier.size() < threshold) {
+				frontier = FrontierTask.expand(this, frontier, 0, frontier.size(), visited);
+			} else {
+				frontier = FrontierTask.expandParallel(this, pool, frontier, visited);
+			}
+		}
+
+		if (probe != null) probe.end();
+	}
+}
@@ -0,0 +1,264 @@
+package heavyindustry.util.path;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in cost statistics of the searches of one path finder: the number of queries, vertices expanded, links relaxed, the wall
+ * time, the peak frontier size and the bytes allocated by the searching thread, aggregated into power of two histograms.
+ * <p>A search records its costs through a {@link Probe} obtained from {@link #begin(PathMetrics, String)}, which returns null
+ * when no metrics are attached, so an uninstrumented search only pays a null check. Metrics can be shared between threads,
+ * each probe belongs to the thread running its search.
+ * <p>Named instances are kept in a global registry with {@link #of(String)} and can be dumped together with {@link #dumpAll()}.
+ * If {@link #jfrEvents} is enabled, every finished query is also committed as a {@code heavyindustry.PathSearch} JFR event.
+ *
+ * @see BFSPathFinder#metrics()
+ * @see InstrumentedPathFinder
+ * @since 1.0.8
+ */
+public class PathMetrics {
+	public static final String FIND_PATH = "findPath", EACH_VERTICES = "eachVertices";
+
+	private static final ConcurrentHashMap<String, PathMetrics> registry = new ConcurrentHashMap<>();
+	private static final com.sun.management.ThreadMXBean allocationBean;
+
+	/** Whether finished queries are committed as JFR events, the event class is only loaded once this is enabled. */
+	public static volatile boolean jfrEvents = false;
+
+	static {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		allocationBean = bean instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported() ? sun : null;
+	}
+
+	public final String name;
+
+	public final LongAdder queries = new LongAdder();
+	public final LongAdder expanded = new LongAdder();
+	public final LongAdder relaxed = new LongAdder();
+	public final LongAdder nanos = new LongAdder();
+	public final LongAdder allocated = new LongAdder();
+	public final AtomicLong peakFrontier = new AtomicLong();
+
+	public final Histogram timeHistogram = new Histogram();
+	public final Histogram expandedHistogram = new Histogram();
+	public final Histogram frontierHistogram = new Histogram();
+	public final Histogram allocatedHistogram = new Histogram();
+
+	public PathMetrics(String name) {
+		this.name = name;
+	}
+
+	/** Get the registered metrics of the given name, creating them on the first call. */
+	public static PathMetrics of(String name) {
+		return registry.computeIfAbsent(name, PathMetrics::new);
+	}
+
+	/** @return A report of all registered metrics, sorted by name. */
+	public static String dumpAll() {
+		StringBuilder builder = new StringBuilder();
+		for (PathMetrics metrics : new TreeMap<>(registry).values()) {
+			metrics.dump(builder);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Start recording a query.
+	 *
+	 * @param metrics The metrics to record into, may be null
+	 * @param kind    The kind of query, such as {@link #FIND_PATH} or {@link #EACH_VERTICES}
+	 * @return The probe of the query, or null if {@code metrics} is null
+	 */
+	public static Probe begin(PathMetrics metrics, String kind) {
+		return metrics == null ? null : new Probe(metrics, kind);
+	}
+
+	/** @return The bytes allocated so far by the current thread, or -1 if the JVM does not track them. */
+	public static long threadAllocatedBytes() {
+		return allocationBean != null && allocationBean.isThreadAllocatedMemoryEnabled() ? allocationBean.getCurrentThreadAllocatedBytes() : -1;
+	}
+
+	protected void record(Probe probe, long time, long bytes) {
+		queries.increment();
+		expanded.add(probe.expanded);
+		relaxed.add(probe.relaxed);
+		nanos.add(time);
+		peakFrontier.accumulateAndGet(probe.peakFrontier, Math::max);
+
+		timeHistogram.add(time);
+		expandedHistogram.add(probe.expanded);
+		frontierHistogram.add(probe.peakFrontier);
+
+		if (bytes >= 0) {
+			allocated.add(bytes);
+			allocatedHistogram.add(bytes);
+		}
+
+		if (jfrEvents) PathSearchEvent.commit(this, probe, time, bytes);
+	}
+
+	public void reset() {
+		queries.reset();
+		expanded.reset();
+		relaxed.reset();
+		nanos.reset();
+		allocated.reset();
+		peakFrontier.set(0);
+
+		timeHistogram.reset();
+		expandedHistogram.reset();
+		frontierHistogram.reset();
+		allocatedHistogram.reset();
+	}
+
+	/** Append a readable report of these metrics to the builder. */
+	public StringBuilder dump(StringBuilder builder) {
+		long count = queries.sum();
+		builder.append(name).append(": ").append(count).append(" queries");
+		if (count > 0) {
+			builder.append(", avg ").append(nanos.sum() / count / 1000).append(" us")
+					.append(", avg expanded ").append(expanded.sum() / count)
+					.append(", avg relaxed ").append(relaxed.sum() / count)
+					.append(", peak frontier ").append(peakFrontier.get());
+			if (allocated.sum() > 0) builder.append(", avg allocated ").append(allocated.sum() / count).append(" B");
+		}
+		builder.append('\n');
+
+		timeHistogram.dump(builder.append("  time (ns)       "));
+		expandedHistogram.dump(builder.append("  expanded        "));
+		frontierHistogram.dump(builder.append("  peak frontier   "));
+		allocatedHistogram.dump(builder.append("  allocated (B)   "));
+		return builder;
+	}
+
+	@Override
+	public String toString() {
+		return dump(new StringBuilder()).toString();
+	}
+
+	/** The cost record of one running query, used by a single thread. */
+	public static class Probe {
+		public final PathMetrics metrics;
+		public final String kind;
+
+		protected final long startNanos, startBytes;
+
+		public long expanded, relaxed, queued;
+		public int peakFrontier;
+
+		protected Probe(PathMetrics metrics, String kind) {
+			this.metrics = metrics;
+			this.kind = kind;
+			startBytes = threadAllocatedBytes();
+			startNanos = System.nanoTime();
+		}
+
+		/** A vertex has been taken from the frontier. */
+		public void expand() {
+			expanded++;
+		}
+
+		/** A link has been examined. */
+		public void relax() {
+			relaxed++;
+		}
+
+		/** A vertex has been added to the frontier. */
+		public void enqueue() {
+			queued++;
+			int size = (int) (queued - expanded);
+			if (size > peakFrontier) peakFrontier = size;
+		}
+
+		/** Report the current frontier size directly, for searches that know it. */
+		public void frontier(int size) {
+			if (size > peakFrontier) peakFrontier = size;
+		}
+
+		/** Finish the query and add its costs to the metrics. */
+		public void end() {
+			long time = System.nanoTime() - startNanos;
+			long bytes = startBytes < 0 ? -1 : threadAllocatedBytes() - startBytes;
+			metrics.record(this, time, bytes);
+		}
+	}
+
+	/**
+	 * A histogram with power of two buckets, bucket {@code i} counts the values in {@code [2^(i-1), 2^i)}, and bucket 0 the
+	 * zeros. Values can be added concurrently.
+	 */
+	public static class Histogram {
+		protected final AtomicLongArray buckets = new AtomicLongArray(65);
+		protected final AtomicLong max = new AtomicLong();
+
+		public void add(long value) {
+			if (value < 0) value = 0;
+			buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+			max.accumulateAndGet(value, Math::max);
+		}
+
+		public long count() {
+			long count = 0;
+			for (int i = 0; i < buckets.length(); i++) {
+				count += buckets.get(i);
+			}
+			return count;
+		}
+
+		public long max() {
+			return max.get();
+		}
+
+		/**
+		 * Estimate a percentile from the buckets.
+		 *
+		 * @param fraction The percentile as a fraction in {@code [0, 1]}
+		 * @return The upper bound of the bucket containing the percentile, 0 if nothing has been recorded
+		 */
+		public long percentile(double fraction) {
+			long count = count();
+			if (count == 0) return 0;
+
+			long rank = (long) Math.ceil(fraction * count), seen = 0;
+			for (int i = 0; i < buckets.length(); i++) {
+				seen += buckets.get(i);
+				if (seen >= Math.max(1, rank)) return i == 0 ? 0 : Math.min(max.get(), i == 64 ? Long.MAX_VALUE : (1l << i) - 1);
+			}
+			return max.get();
+		}
+
+		public void reset() {
+			for (int i = 0; i < buckets.length(); i++) {
+				buckets.set(i, 0);
+			}
+			max.set(0);
+		}
+
+		/** Append the percentiles and the non empty buckets to the builder. */
+		public StringBuilder dump(StringBuilder builder) {
+			builder.append("p50 ").append(percentile(0.5)).append(", p90 ").append(percentile(0.9))
+					.append(", p99 ").append(percentile(0.99)).append(", max ").append(max()).append(" |");
+			for (int i = 0; i < buckets.length(); i++) {
+				long n = buckets.get(i);
+				if (n > 0) builder.append(' ').append(i == 0 ? "0" : "<2^" + i).append(':').append(n);
+			}
+			return builder.append('\n');
+		}
+
+		/** @return A copy of the bucket counts. */
+		public Map<Integer, Long> snapshot() {
+			TreeMap<Integer, Long> out = new TreeMap<>();
+			for (int i = 0; i < buckets.length(); i++) {
+				long n = buckets.get(i);
+				if (n > 0) out.put(i, n);
+			}
+			return out;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package heavyindustry.util.path;
+
+import heavyindustry.util.path.BFSPathFinder.PathPointer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A resumable breadth first path search. The frontier and the backtracking pointers are kept between calls, so a large search
+ * can be advanced a little at a time with {@link #stepExpansions(int)} or {@link #stepNanos(long)}, for example spread across several server
+ * ticks, instead of blocking in a single {@link PathFinder#findPath(Object, PathFindFunc.PathAcceptor)} call.
+ * <p>The paths are collected while searching and delivered to the {@link PathFindFunc.PathAcceptor} once, when the search has
+ * finished. A cancelled search delivers nothing.
+ * <p>If the graph is a {@link BFSPathFinder}, its {@link BFSPathFinder#exclude(Object)} and {@link BFSPathFinder#createPath()}
+ * are used. The search observes the graph as it is at the time of each step, if the graph is edited while a search is running,
+ * the search should be cancelled and started again.
+ *
+ * @see PathSearchQueue
+ * @since 1.0.8
+ */
+public class PathSearch<V> {
+	/** How many vertices are expanded between two clock reads in {@link #stepNanos(long)}. */
+	protected static final int CLOCK_INTERVAL = 32;
+
+	protected final PathFinder<V> graph;
+	protected final V origin;
+	protected final PathFindFunc.PathAcceptor<V> pathConsumer;
+
+	protected final ArrayDeque<V> frontier = new ArrayDeque<>();
+	protected final HashMap<V, PathPointer<V>> pointers = new HashMap<>();
+
+	protected final ArrayList<V> destinations = new ArrayList<>();
+	protected final ArrayList<IPath<V>> paths = new ArrayList<>();
+
+	protected boolean done, cancelled;
+	protected int expanded;
+
+	/**
+	 * @param graph        The graph to search
+	 * @param origin       The origin of the search
+	 * @param pathConsumer Receives the path to every reachable destination once the search has finished
+	 */
+	public PathSearch(PathFinder<V> graph, V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		this.graph = graph;
+		this.origin = origin;
+		this.pathConsumer = pathConsumer;
+
+		frontier.add(origin);
+		pointers.put(origin, new PathPointer<>(origin));
+	}
+
+	/**
+	 * Expand at most the given number of vertices.
+	 *
+	 * @return Whether the search has finished or has been cancelled
+	 */
+	public boolean stepExpansions(int maxExpansions) {
+		for (int i = 0; i < maxExpansions && !done; i++) {
+			expand();
+		}
+		return done;
+	}
+
+	/**
+	 * Expand vertices until the time budget is used up. The clock is only read every few expansions, so the budget can be
+	 * slightly exceeded.
+	 *
+	 * @param nanosBudget The time budget in nanoseconds
+	 * @return Whether the search has finished or has been cancelled
+	 */
+	public boolean stepNanos(long nanosBudget) {
+		long deadline = System.nanoTime() + nanosBudget;
+		while (!done) {
+			for (int i = 0; i < CLOCK_INTERVAL && !done; i++) {
+				expand();
+			}
+			if (System.nanoTime() - deadline >= 0) break;
+		}
+		return done;
+	}
+
+	/** Run the search to the end in the calling thread. */
+	public void finish() {
+		while (!done) {
+			expand();
+		}
+	}
+
+	protected void expand() {
+		V next = frontier.poll();
+		if (next == null) {
+			complete();
+			return;
+		}
+
+		expanded++;
+		PathPointer<V> pointer = pointers.get(next);
+		for (V vert : graph.getLinkVertices(next)) {
+			if (!exclude(vert) && !pointers.containsKey(vert)) {
+				pointers.put(vert, new PathPointer<>(vert, pointer));
+				frontier.add(vert);
+			}
+		}
+
+		if (graph.isDestination(origin, next)) {
+			destinations.add(next);
+			paths.add(tracePath(pointer));
+		}
+	}
+
+	protected void complete() {
+		done = true;
+		for (int i = 0; i < destinations.size(); i++) {
+			pathConsumer.accept(destinations.get(i), paths.get(i));
+		}
+		release();
+	}
+
+	/** Stop the search, no result will be delivered. */
+	public void cancel() {
+		if (done) return;
+
+		done = cancelled = true;
+		release();
+	}
+
+	protected void release() {
+		frontier.clear();
+		pointers.clear();
+		destinations.clear();
+		paths.clear();
+	}
+
+	protected IPath<V> tracePath(PathPointer<V> pointer) {
+		int length = 0;
+		for (PathPointer<V> p = pointer; p != null; p = p.previous) {
+			length++;
+		}
+
+		IPath<V> path = createPath();
+		path.reserve(length);
+		for (PathPointer<V> p = pointer; p != null; p = p.previous) {
+			path.addFirst(p.self);
+		}
+		return path;
+	}
+
+	protected boolean exclude(V vert) {
+		return graph instanceof BFSPathFinder<V> finder && finder.exclude(vert);
+	}
+
+	protected IPath<V> createPath() {
+		return graph instanceof BFSPathFinder<V> finder ? finder.createPath() : new ArrayPath<>();
+	}
+
+	public V origin() {
+		return origin;
+	}
+
+	/** @return Whether the search has finished or has been cancelled. */
+	public boolean isDone() {
+		return done;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/** @return The number of vertices expanded so far. */
+	public int expanded() {
+		return expanded;
+	}
+
+	/** @return The number of vertices waiting to be expanded. */
+	public int frontierSize() {
+		return frontier.size();
+	}
+}
@@ -0,0 +1,57 @@
+package heavyindustry.util.path;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event describing one finished path query, committed by {@link PathMetrics} when {@link PathMetrics#jfrEvents} is enabled.
+ *
+ * @since 1.0.8
+ */
+@Name("heavyindustry.PathSearch")
+@Label("Path Search")
+@Category({"HeavyIndustry", "Path"})
+@Description("A findPath or eachVertices query of an instrumented path finder")
+class PathSearchEvent extends Event {
+	@Label("Finder")
+	String finder;
+
+	@Label("Kind")
+	String kind;
+
+	@Label("Expanded")
+	long expanded;
+
+	@Label("Relaxed")
+	long relaxed;
+
+	@Label("Peak Frontier")
+	int peakFrontier;
+
+	@Label("Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long nanos;
+
+	@Label("Allocated")
+	@DataAmount
+	long allocated;
+
+	static void commit(PathMetrics metrics, PathMetrics.Probe probe, long nanos, long bytes) {
+		PathSearchEvent event = new PathSearchEvent();
+		if (!event.shouldCommit()) return;
+
+		event.finder = metrics.name;
+		event.kind = probe.kind;
+		event.expanded = probe.expanded;
+		event.relaxed = probe.relaxed;
+		event.peakFrontier = probe.peakFrontier;
+		event.nanos = nanos;
+		event.allocated = bytes;
+		event.commit();
+	}
+}
@@ -0,0 +1,67 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayDeque;
+
+/**
+ * Scheduler that advances many {@link PathSearch} objects within a fixed time budget per tick. The budget is shared equally
+ * between the running searches in a round-robin order, so one huge search can not starve the others, and the searches that
+ * have finished are dropped from the queue.
+ * <p>This class is not thread-safe, it is meant to be ticked from the thread that owns the graph.
+ *
+ * @since 1.0.8
+ */
+public class PathSearchQueue {
+	/** The minimum number of expansions given to a search in one tick, even when the budget is exhausted. */
+	public int minExpansions = 16;
+
+	protected final ArrayDeque<PathSearch<?>> searches = new ArrayDeque<>();
+
+	/** Add a search to the queue, it will be advanced from the next tick on. */
+	public <V> PathSearch<V> submit(PathSearch<V> search) {
+		if (!search.isDone()) searches.add(search);
+		return search;
+	}
+
+	/** Create a search and add it to the queue. */
+	public <V> PathSearch<V> submit(PathFinder<V> graph, V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		return submit(new PathSearch<>(graph, origin, pathConsumer));
+	}
+
+	/**
+	 * Advance the queued searches, each one receiving an equal share of the time budget.
+	 *
+	 * @param nanosBudget The total time budget of this tick in nanoseconds
+	 * @return The number of searches that are still running
+	 */
+	public int tick(long nanosBudget) {
+		long start = System.nanoTime();
+
+		int count = searches.size();
+		for (int i = 0; i < count; i++) {
+			PathSearch<?> search = searches.poll();
+			if (search == null) break;
+
+			long remaining = nanosBudget - (System.nanoTime() - start);
+			boolean done = remaining > 0 ? search.stepNanos(remaining / (count - i)) : search.stepExpansions(minExpansions);
+
+			if (!done) searches.add(search);
+		}
+		return searches.size();
+	}
+
+	/** Cancel and remove all queued searches. */
+	public void cancelAll() {
+		for (PathSearch<?> search : searches) {
+			search.cancel();
+		}
+		searches.clear();
+	}
+
+	public int size() {
+		return searches.size();
+	}
+
+	public boolean isEmpty() {
+		return searches.isEmpty();
+	}
+}
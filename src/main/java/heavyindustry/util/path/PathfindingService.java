@@ -0,0 +1,198 @@
+package heavyindustry.util.path;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs path searches off the server thread. The searches are performed against an immutable {@link GraphSnapshot} on a worker
+ * pool, and their results are handed back through a lock-free completion queue that the owner drains once per tick with
+ * {@link #drain()}, so the callbacks always run on the thread that owns the game state.
+ * <p>Requests for the same origin that arrive while a search from that origin is still pending are coalesced, they share one
+ * search and all their callbacks receive its results. After the graph is edited, publish a new snapshot with
+ * {@link #update(GraphSnapshot)}, the requests made from then on are searched on the new snapshot.
+ *
+ * @since 1.0.8
+ */
+public class PathfindingService<V> implements AutoCloseable {
+	private static final AtomicInteger threadCounter = new AtomicInteger();
+
+	protected final ExecutorService executor;
+	protected final boolean ownsExecutor;
+
+	protected final ConcurrentHashMap<V, Request<V>> pending = new ConcurrentHashMap<>();
+	protected final ConcurrentLinkedQueue<Request<V>> completed = new ConcurrentLinkedQueue<>();
+
+	protected volatile GraphSnapshot<V> snapshot;
+
+	/**
+	 * Create a service with a bounded pool of daemon worker threads.
+	 *
+	 * @param snapshot The graph to search until the next {@link #update(GraphSnapshot)}
+	 * @param threads  The number of worker threads
+	 */
+	public PathfindingService(GraphSnapshot<V> snapshot, int threads) {
+		this(snapshot, new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+			Thread thread = new Thread(task, "HeavyIndustry-Pathfinding-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}), true);
+		((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Create a service that runs the searches on the given executor, which is not shut down by {@link #close()}.
+	 *
+	 * @param snapshot The graph to search until the next {@link #update(GraphSnapshot)}
+	 * @param executor The executor running the searches
+	 */
+	public PathfindingService(GraphSnapshot<V> snapshot, ExecutorService executor) {
+		this(snapshot, executor, false);
+	}
+
+	protected PathfindingService(GraphSnapshot<V> snapshot, ExecutorService executor, boolean ownsExecutor) {
+		this.snapshot = snapshot;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	/** Create a service that runs every search on its own virtual thread. */
+	public static <V> PathfindingService<V> virtual(GraphSnapshot<V> snapshot) {
+		return new PathfindingService<>(snapshot, Executors.newVirtualThreadPerTaskExecutor(), true);
+	}
+
+	/** Publish a new snapshot of the graph, the searches already running finish on the previous one. */
+	public void update(GraphSnapshot<V> snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	public GraphSnapshot<V> snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Request the paths from an origin to all its destinations. The callback is invoked during a later {@link #drain()}, once
+	 * for every destination found. If a search from the same origin on the current snapshot is still pending, the request
+	 * joins it instead of starting a new one.
+	 *
+	 * @param origin       The origin of the search
+	 * @param pathConsumer Receives the paths on the thread calling {@link #drain()}
+	 * @throws RejectedExecutionException If the executor does not accept the search, for example after {@link #close()}. The
+	 *                                    callback of the caller is then dropped, requests that joined the search in the
+	 *                                    meantime are reported to {@link #onFailure(Object, Throwable)} by {@link #drain()}.
+	 */
+	public void request(V origin, PathFindFunc.PathAcceptor<V> pathConsumer) {
+		GraphSnapshot<V> current = snapshot;
+
+		boolean[] created = {false};
+		Request<V> request = pending.compute(origin, (key, old) -> {
+			if (old == null || old.snapshot != current) {
+				old = new Request<>(key, current);
+				created[0] = true;
+			}
+			old.consumers.add(pathConsumer);
+			return old;
+		});
+
+		if (!created[0]) return;
+
+		try {
+			executor.execute(() -> run(request));
+		} catch (RejectedExecutionException e) {
+			// No request can join once it is removed. The caller gets the error right away, only those that joined get it
+			// through drain(), so that every failure is reported once.
+			pending.remove(origin, request);
+			request.consumers.remove(0);
+			if (!request.consumers.isEmpty()) {
+				request.error = e;
+				completed.add(request);
+			}
+			throw e;
+		}
+	}
+
+	protected void run(Request<V> request) {
+		try {
+			request.snapshot.findPath(request.origin, request::add);
+		} catch (Throwable e) {
+			request.error = e;
+		}
+
+		// No request can join after this point, the next one for the same origin starts a new search.
+		pending.remove(request.origin, request);
+		completed.add(request);
+	}
+
+	/**
+	 * Deliver the results of the finished searches to their callbacks, should be called once per tick by the thread that owns
+	 * the game state.
+	 *
+	 * @return The number of searches whose results have been delivered
+	 */
+	public int drain() {
+		int count = 0;
+
+		Request<V> request;
+		while ((request = completed.poll()) != null) {
+			count++;
+
+			if (request.error != null) {
+				onFailure(request.origin, request.error);
+				continue;
+			}
+
+			for (PathFindFunc.PathAcceptor<V> consumer : request.consumers) {
+				for (int i = 0; i < request.destinations.size(); i++) {
+					consumer.accept(request.destinations.get(i), request.paths.get(i));
+				}
+			}
+		}
+		return count;
+	}
+
+	/** Called by {@link #drain()} when a search has thrown an exception, rethrows it by default. */
+	protected void onFailure(V origin, Throwable error) {
+		throw new RuntimeException("Path search from " + origin + " failed", error);
+	}
+
+	/** @return The number of searches that are queued or running. */
+	public int pendingCount() {
+		return pending.size();
+	}
+
+	/** Stop accepting work and shut down the worker pool if it is owned by this service. */
+	@Override
+	public void close() {
+		if (ownsExecutor) executor.shutdownNow();
+	}
+
+	protected static class Request<V> {
+		public final V origin;
+		public final GraphSnapshot<V> snapshot;
+
+		/** Only modified while the request is mapped in {@link #pending}, read by {@link #drain()} after it has been removed. */
+		public final ArrayList<PathFindFunc.PathAcceptor<V>> consumers = new ArrayList<>(1);
+
+		public final ArrayList<V> destinations = new ArrayList<>();
+		public final ArrayList<IPath<V>> paths = new ArrayList<>();
+
+		public Throwable error;
+
+		public Request(V origin, GraphSnapshot<V> snapshot) {
+			this.origin = origin;
+			this.snapshot = snapshot;
+		}
+
+		public void add(V destination, IPath<V> path) {
+			destinations.add(destination);
+			paths.add(path);
+		}
+	}
+}